@@ -0,0 +1,312 @@
+package com.thoughtworks.rslist.loadtest;
+
+import com.thoughtworks.rslist.api.UserController;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.exception.VoteCommitException;
+import com.thoughtworks.rslist.observability.AllocationTracker;
+import com.thoughtworks.rslist.outbox.VoteOutboxRelay;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteOutboxRepository;
+import com.thoughtworks.rslist.service.VoteCounterService;
+import com.thoughtworks.rslist.service.VoteService;
+import com.thoughtworks.rslist.validation.DomainValidator;
+import org.springframework.context.ConfigurableApplicationContext;
+import org.springframework.core.MethodParameter;
+import org.springframework.jdbc.core.BatchPreparedStatementSetter;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.validation.BeanPropertyBindingResult;
+import org.springframework.validation.FieldError;
+import org.springframework.web.bind.MethodArgumentNotValidException;
+
+import javax.validation.ConstraintViolation;
+import javax.validation.Validation;
+import javax.validation.Validator;
+import java.sql.PreparedStatement;
+import java.sql.SQLException;
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.function.IntConsumer;
+
+/**
+ * Component benchmarks the HTTP mix cannot isolate, run in the same context once the mix is done
+ * and selected with -Dloadtest.benchmarks. Each one prints a line and adds its numbers to the
+ * report under "benchmarks".
+ */
+class Benchmarks {
+
+    private final ConfigurableApplicationContext context;
+    private final LoadTestConfig config;
+
+    Benchmarks(ConfigurableApplicationContext context, LoadTestConfig config) {
+        this.context = context;
+        this.config = config;
+    }
+
+    Map<String, Object> run() throws Exception {
+        Map<String, Object> results = new LinkedHashMap<>();
+        for (String benchmark : config.benchmarks) {
+            switch (benchmark) {
+                case "voteCounterShards":
+                    results.put(benchmark, voteCounterShards());
+                    break;
+                case "voteGroupCommit":
+                    results.put(benchmark, voteGroupCommit());
+                    break;
+                case "allocationTracking":
+                    results.put(benchmark, allocationTracking());
+                    break;
+                case "outboxRelay":
+                    results.put(benchmark, outboxRelay());
+                    break;
+                case "validation":
+                    results.put(benchmark, validation());
+                    break;
+                default:
+                    throw new IllegalArgumentException("unknown benchmark in loadtest.benchmarks: " + benchmark);
+            }
+        }
+        return results;
+    }
+
+    /**
+     * Concurrent vote counter increments on one event, kept on the rs_event row and spread over shards.
+     */
+    private Map<String, Object> voteCounterShards() throws Exception {
+        VoteCounterService voteCounterService = context.getBean(VoteCounterService.class);
+        TransactionTemplate transactionTemplate = new TransactionTemplate(
+                context.getBean(PlatformTransactionManager.class));
+        Map<String, Object> result = new LinkedHashMap<>();
+        for (int shardCount : new int[]{1, 16}) {
+            RsEventEntitiy rsEvent = saveOneRsEvent();
+            voteCounterService.promote(rsEvent.getId(), shardCount);
+            RsEventEntitiy promoted = context.getBean(RsEventRepository.class).findById(rsEvent.getId()).get();
+            double rate = concurrently(config.benchmarkOperations, userId -> transactionTemplate.execute(status -> {
+                voteCounterService.increment(promoted, userId, 1);
+                return null;
+            }));
+            result.put(shardCount + " shards", rate);
+        }
+        System.out.println(String.format("vote counter increments/s on one event: 1 shard %.0f, 16 shards %.0f",
+                result.get("1 shards"), result.get("16 shards")));
+        return result;
+    }
+
+    /**
+     * Concurrent votes on one event committed on the caller's thread, with the committer stopped,
+     * and through the committer. Both paths are the same unless the context runs with
+     * rs.vote.group-commit.enabled=true.
+     */
+    private Map<String, Object> voteGroupCommit() throws Exception {
+        VoteService voteService = context.getBean(VoteService.class);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("group commit enabled", voteService.getStats().isEnabled());
+        voteService.stop();
+        try {
+            result.put("direct votes/s", votes(voteService));
+        } finally {
+            voteService.start();
+        }
+        result.put("group commit votes/s", votes(voteService));
+        System.out.println(String.format("votes/s on one event: direct %.0f, group commit %.0f (%s)",
+                result.get("direct votes/s"), result.get("group commit votes/s"), voteService.getStats()));
+        return result;
+    }
+
+    private double votes(VoteService voteService) throws Exception {
+        RsEventEntitiy rsEvent = saveOneRsEvent();
+        List<Integer> userIds = new ArrayList<>();
+        for (int t = 0; t < config.threads; t++) {
+            userIds.add(saveOneUser(config.benchmarkOperations).getId());
+        }
+        return concurrently(config.benchmarkOperations, thread -> {
+            try {
+                voteService.vote(rsEvent.getId(), userIds.get(thread), 1, LocalDateTime.now(), "127.0.0.1");
+            } catch (VoteCommitException e) {
+                throw new IllegalStateException(e);
+            }
+        });
+    }
+
+    /**
+     * What allocation tracking adds to a request: two reads of the thread's allocated-bytes
+     * counter, set against two System.nanoTime() calls as the baseline.
+     */
+    private Map<String, Object> allocationTracking() {
+        AllocationTracker allocationTracker = context.getBean(AllocationTracker.class);
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("enabled", allocationTracker.isEnabled());
+        if (!allocationTracker.isEnabled()) {
+            System.out.println("allocation tracking is off, nothing to measure");
+            return result;
+        }
+        int iterations = config.benchmarkOperations * 50;
+        long trackedNanos = 0;
+        long baselineNanos = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                allocationTracker.currentThreadAllocatedBytes();
+                allocationTracker.currentThreadAllocatedBytes();
+            }
+            trackedNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                System.nanoTime();
+                System.nanoTime();
+            }
+            baselineNanos = System.nanoTime() - start;
+        }
+
+        result.put("tracking ns/request", (double) trackedNanos / iterations);
+        result.put("nanoTime ns/request", (double) baselineNanos / iterations);
+        System.out.println(String.format("allocation tracking: %.1fns/request, two nanoTime calls %.1fns",
+                result.get("tracking ns/request"), result.get("nanoTime ns/request")));
+        return result;
+    }
+
+    /**
+     * Relay throughput from a pre-filled vote_outbox to the configured sink, against the 50k
+     * votes/s the relay has to sustain. The outbox is drained first so only the filled rows count.
+     */
+    private Map<String, Object> outboxRelay() throws Exception {
+        VoteOutboxRelay relay = context.getBean(VoteOutboxRelay.class);
+        VoteOutboxRepository outboxRepository = context.getBean(VoteOutboxRepository.class);
+        drain(relay, outboxRepository);
+        Timestamp createdAt = Timestamp.valueOf(LocalDateTime.now().minusHours(1));
+        new TransactionTemplate(context.getBean(PlatformTransactionManager.class)).execute(status ->
+                context.getBean(JdbcTemplate.class).batchUpdate("INSERT INTO vote_outbox (vote_id, rs_event_id, " +
+                        "user_id, vote_num, vote_time, quarantined, created_at) VALUES (?, ?, ?, ?, ?, ?, ?)",
+                        new BatchPreparedStatementSetter() {
+                            @Override
+                            public void setValues(PreparedStatement statement, int i) throws SQLException {
+                                statement.setInt(1, i);
+                                statement.setInt(2, 1 + i % 100);
+                                statement.setInt(3, 1 + i % 1000);
+                                statement.setInt(4, 1);
+                                statement.setTimestamp(5, createdAt);
+                                statement.setBoolean(6, false);
+                                statement.setTimestamp(7, createdAt);
+                            }
+
+                            @Override
+                            public int getBatchSize() {
+                                return config.benchmarkOperations;
+                            }
+                        }));
+        long start = System.nanoTime();
+        drain(relay, outboxRepository);
+        double rate = (double) config.benchmarkOperations * 1_000_000_000L / (System.nanoTime() - start);
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("votes/s", rate);
+        result.put("meets 50k votes/s", rate >= 50_000);
+        System.out.println(String.format("vote outbox relay: %.0f votes/s (%s 50k)", rate,
+                rate >= 50_000 ? "meets" : "below"));
+        return result;
+    }
+
+    /**
+     * Rejecting an invalid user on the compiled fast path versus bean validation plus the
+     * MethodArgumentNotValidException Spring MVC would throw; the last of three rounds counts.
+     */
+    private Map<String, Object> validation() throws Exception {
+        DomainValidator domainValidator = context.getBean(DomainValidator.class);
+        Validator beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+        MethodParameter parameter = new MethodParameter(UserController.class.getMethod("addUser", User.class), 0);
+        User invalid = new User("123456789", 19, "male", "not an email", "12345678901");
+        int iterations = config.benchmarkOperations;
+        long fastNanos = 0;
+        long beanNanos = 0;
+        for (int round = 0; round < 3; round++) {
+            long start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                domainValidator.rejected("invalid user", domainValidator.validate(invalid));
+            }
+            fastNanos = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int i = 0; i < iterations; i++) {
+                BeanPropertyBindingResult bindingResult = new BeanPropertyBindingResult(invalid, "user");
+                for (ConstraintViolation<User> violation : beanValidator.validate(invalid)) {
+                    bindingResult.addError(new FieldError("user", violation.getPropertyPath().toString(),
+                            violation.getMessage()));
+                }
+                new MethodArgumentNotValidException(parameter, bindingResult).getStackTrace();
+            }
+            beanNanos = System.nanoTime() - start;
+        }
+
+        Map<String, Object> result = new LinkedHashMap<>();
+        result.put("fast path ns/request", fastNanos / iterations);
+        result.put("bean validation ns/request", beanNanos / iterations);
+        System.out.println(String.format("invalid user rejection: fast path %dns, bean validation %dns",
+                fastNanos / iterations, beanNanos / iterations));
+        return result;
+    }
+
+    private void drain(VoteOutboxRelay relay, VoteOutboxRepository outboxRepository) throws Exception {
+        while (outboxRepository.count() > 0) {
+            if (relay.relay() == 0) {
+                Thread.sleep(10);
+            }
+        }
+    }
+
+    /**
+     * Runs operations spread over the configured threads; the argument is the thread index.
+     * Returns operations per second.
+     */
+    private double concurrently(int operations, IntConsumer operation) throws Exception {
+        int perThread = Math.max(1, operations / config.threads);
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+        List<Future<?>> futures = new ArrayList<>();
+        long start = System.nanoTime();
+        for (int t = 0; t < config.threads; t++) {
+            int thread = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < perThread; i++) {
+                    operation.accept(thread);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        long elapsedNanos = System.nanoTime() - start;
+        executor.shutdown();
+        return (double) perThread * config.threads * 1_000_000_000L / elapsedNanos;
+    }
+
+    private UserEntity saveOneUser(int voteNum) {
+        return context.getBean(UserRepository.class).save(UserEntity.builder()
+                .name("bench")
+                .age(20)
+                .gender("male")
+                .email("bench@rs.com")
+                .phone("13800000000")
+                .voteNum(voteNum)
+                .build());
+    }
+
+    private RsEventEntitiy saveOneRsEvent() {
+        return context.getBean(RsEventRepository.class).save(RsEventEntitiy.builder()
+                .eventName("benchmark event")
+                .keyword("benchmark")
+                .userId(saveOneUser(0).getId())
+                .voteNum(0)
+                .build());
+    }
+}
@@ -0,0 +1,54 @@
+package com.thoughtworks.rslist.loadtest;
+
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Lock-free latency histogram with log-scaled buckets, percentiles are accurate to about 2%.
+ */
+public class LatencyRecorder {
+
+    private static final double GROWTH = 1.02;
+    private static final int BUCKETS = 1200;
+
+    private final AtomicLongArray counts = new AtomicLongArray(BUCKETS);
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder errors = new LongAdder();
+
+    public void record(long nanos, boolean error) {
+        long micros = Math.max(1, nanos / 1000);
+        int bucket = (int) Math.min(BUCKETS - 1, Math.ceil(Math.log(micros) / Math.log(GROWTH)));
+        counts.incrementAndGet(bucket);
+        requests.increment();
+        if (error) {
+            errors.increment();
+        }
+    }
+
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    public long getErrors() {
+        return errors.sum();
+    }
+
+    public double percentileMillis(double percentile) {
+        long total = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            total += counts.get(i);
+        }
+        if (total == 0) {
+            return 0;
+        }
+        long rank = (long) Math.ceil(total * percentile / 100);
+        long seen = 0;
+        for (int i = 0; i < BUCKETS; i++) {
+            seen += counts.get(i);
+            if (seen >= rank) {
+                return Math.pow(GROWTH, i) / 1000;
+            }
+        }
+        return Math.pow(GROWTH, BUCKETS - 1) / 1000;
+    }
+}
@@ -0,0 +1,69 @@
+package com.thoughtworks.rslist.loadtest;
+
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Load test settings, read from -Dloadtest.* system properties.
+ */
+public class LoadTestConfig {
+
+    public static final String RS_LIST = "GET /rs";
+    public static final String RS_BY_ID = "GET /rs/{id}";
+    public static final String VOTE = "POST /rs/{id}/vote";
+    public static final String VOTE_RANGE = "GET /vote";
+    public static final String USER_LIST = "GET /user";
+    public static final String USER_BY_ID = "GET /user/{id}";
+
+    final int users = Integer.getInteger("loadtest.users", 1000);
+    final int events = Integer.getInteger("loadtest.events", 500);
+    final int votes = Integer.getInteger("loadtest.votes", 10000);
+    final int threads = Integer.getInteger("loadtest.threads", 32);
+    final int warmupSeconds = Integer.getInteger("loadtest.warmupSeconds", 10);
+    final int durationSeconds = Integer.getInteger("loadtest.durationSeconds", 60);
+    final double skew = Double.parseDouble(System.getProperty("loadtest.skew", "1.1"));
+    final String report = System.getProperty("loadtest.report", "build/load-test/report.json");
+    final List<String> benchmarks = Arrays.asList(System.getProperty("loadtest.benchmarks",
+            "voteCounterShards,voteGroupCommit,validation,allocationTracking,outboxRelay").split(","));
+    final int benchmarkOperations = Integer.getInteger("loadtest.benchmarkOperations", 20000);
+    final Map<String, Integer> mix = parseMix(System.getProperty("loadtest.mix",
+            "rsList=5,rsById=50,vote=25,voteRange=5,userList=2,userById=13"));
+
+    private static Map<String, Integer> parseMix(String value) {
+        Map<String, String> names = new LinkedHashMap<>();
+        names.put("rsList", RS_LIST);
+        names.put("rsById", RS_BY_ID);
+        names.put("vote", VOTE);
+        names.put("voteRange", VOTE_RANGE);
+        names.put("userList", USER_LIST);
+        names.put("userById", USER_BY_ID);
+
+        Map<String, Integer> mix = new LinkedHashMap<>();
+        for (String entry : value.split(",")) {
+            String[] pair = entry.trim().split("=");
+            String endpoint = names.get(pair[0]);
+            if (endpoint == null) {
+                throw new IllegalArgumentException("unknown endpoint in loadtest.mix: " + pair[0]);
+            }
+            mix.put(endpoint, Integer.parseInt(pair[1]));
+        }
+        return mix;
+    }
+
+    Map<String, Object> toMap() {
+        Map<String, Object> map = new LinkedHashMap<>();
+        map.put("users", users);
+        map.put("events", events);
+        map.put("votes", votes);
+        map.put("threads", threads);
+        map.put("warmupSeconds", warmupSeconds);
+        map.put("durationSeconds", durationSeconds);
+        map.put("skew", skew);
+        map.put("mix", mix);
+        map.put("benchmarks", benchmarks);
+        map.put("benchmarkOperations", benchmarkOperations);
+        return map;
+    }
+}
@@ -0,0 +1,261 @@
+package com.thoughtworks.rslist.loadtest;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.RsListApplication;
+import com.thoughtworks.rslist.domain.GroupCommitStats;
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.entity.VoteEntity;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import com.thoughtworks.rslist.service.VoteService;
+import org.springframework.boot.builder.SpringApplicationBuilder;
+import org.springframework.context.ConfigurableApplicationContext;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.nio.charset.StandardCharsets;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static com.thoughtworks.rslist.loadtest.LoadTestConfig.*;
+
+/**
+ * Boots RsListApplication on an in-memory H2 database in MySQL mode, seeds it and drives a
+ * weighted, hot-key skewed mix of requests against it. Throughput and latency percentiles per
+ * endpoint are printed and written as JSON for regression tracking. Application properties are
+ * taken from the program arguments, e.g. {@code --args='--rs.vote.group-commit.enabled=true'} to
+ * compare vote throughput and latency with and without group commit. Component {@link Benchmarks}
+ * run after the mix.
+ */
+public class LoadTestRunner {
+
+    private final LoadTestConfig config;
+    private final String baseUrl;
+    private final Map<String, LatencyRecorder> recorders = new LinkedHashMap<>();
+    private final List<String> endpoints = new ArrayList<>();
+    private final int[] cumulativeWeights;
+
+    private List<Integer> userIds;
+    private List<Integer> rsEventIds;
+    private ZipfSampler userSampler;
+    private ZipfSampler rsEventSampler;
+
+    LoadTestRunner(LoadTestConfig config, String baseUrl) {
+        this.config = config;
+        this.baseUrl = baseUrl;
+        cumulativeWeights = new int[config.mix.size()];
+        int sum = 0;
+        for (Map.Entry<String, Integer> entry : config.mix.entrySet()) {
+            sum += entry.getValue();
+            cumulativeWeights[endpoints.size()] = sum;
+            endpoints.add(entry.getKey());
+            recorders.put(entry.getKey(), new LatencyRecorder());
+        }
+    }
+
+    public static void main(String[] args) throws Exception {
+        LoadTestConfig config = new LoadTestConfig();
+        ConfigurableApplicationContext context = new SpringApplicationBuilder(RsListApplication.class)
+                .profiles("loadtest")
+                .run(args);
+        try {
+            String port = context.getEnvironment().getProperty("local.server.port");
+            LoadTestRunner runner = new LoadTestRunner(config, "http://localhost:" + port);
+            runner.seed(context);
+            runner.run();
+            GroupCommitStats groupCommit = context.getBean(VoteService.class).getStats();
+            runner.report(groupCommit, new Benchmarks(context, config).run());
+        } finally {
+            context.close();
+        }
+    }
+
+    void seed(ConfigurableApplicationContext context) {
+        UserRepository userRepository = context.getBean(UserRepository.class);
+        RsEventRepository rsEventRepository = context.getBean(RsEventRepository.class);
+        VoteRepository voteRepository = context.getBean(VoteRepository.class);
+
+        userIds = new ArrayList<>();
+        userRepository.saveAll(IntStream.range(0, config.users)
+                .mapToObj(i -> UserEntity.builder()
+                        .name("user" + i)
+                        .age(20)
+                        .gender("male")
+                        .email("user" + i + "@rs.com")
+                        .phone("13800000000")
+                        .voteNum(Integer.MAX_VALUE / 2)
+                        .build())
+                .collect(Collectors.toList()))
+                .forEach(user -> userIds.add(user.getId()));
+
+        rsEventIds = new ArrayList<>();
+        rsEventRepository.saveAll(IntStream.range(0, config.events)
+                .mapToObj(i -> RsEventEntitiy.builder()
+                        .eventName("event " + i)
+                        .keyword("keyword " + i % 20)
+                        .userId(userIds.get(i % userIds.size()))
+                        .voteNum(0)
+                        .build())
+                .collect(Collectors.toList()))
+                .forEach(rsEvent -> rsEventIds.add(rsEvent.getId()));
+
+        userSampler = new ZipfSampler(userIds.size(), config.skew);
+        rsEventSampler = new ZipfSampler(rsEventIds.size(), config.skew);
+
+        LocalDateTime now = LocalDateTime.now();
+        voteRepository.saveAll(IntStream.range(0, config.votes)
+                .mapToObj(i -> VoteEntity.builder()
+                        .voteNum(1)
+                        .voteTime(now.minusMinutes(ThreadLocalRandom.current().nextInt(30 * 24 * 60)))
+                        .userId(userIds.get(userSampler.next()))
+                        .rsEventId(rsEventIds.get(rsEventSampler.next()))
+                        .build())
+                .collect(Collectors.toList()));
+        System.out.println("seeded " + config.users + " users, " + config.events + " events, "
+                + config.votes + " votes");
+    }
+
+    void run() throws Exception {
+        long warmupEnd = System.nanoTime() + TimeUnit.SECONDS.toNanos(config.warmupSeconds);
+        long end = warmupEnd + TimeUnit.SECONDS.toNanos(config.durationSeconds);
+        ExecutorService executor = Executors.newFixedThreadPool(config.threads);
+        List<Future<?>> workers = new ArrayList<>();
+        for (int i = 0; i < config.threads; i++) {
+            workers.add(executor.submit(() -> {
+                long start;
+                while ((start = System.nanoTime()) < end) {
+                    String endpoint = nextEndpoint();
+                    boolean error;
+                    try {
+                        error = call(endpoint) >= 500;
+                    } catch (IOException e) {
+                        error = true;
+                    }
+                    if (start >= warmupEnd) {
+                        recorders.get(endpoint).record(System.nanoTime() - start, error);
+                    }
+                }
+            }));
+        }
+        for (Future<?> worker : workers) {
+            worker.get();
+        }
+        executor.shutdown();
+    }
+
+    void report(GroupCommitStats groupCommit, Map<String, Object> benchmarks) throws IOException {
+        Map<String, Object> results = new LinkedHashMap<>();
+        System.out.println(String.format("%-20s %10s %8s %10s %9s %9s %9s %9s",
+                "endpoint", "requests", "errors", "req/s", "p50 ms", "p90 ms", "p99 ms", "p99.9 ms"));
+        for (Map.Entry<String, LatencyRecorder> entry : recorders.entrySet()) {
+            LatencyRecorder recorder = entry.getValue();
+            Map<String, Object> result = new LinkedHashMap<>();
+            result.put("requests", recorder.getRequests());
+            result.put("errors", recorder.getErrors());
+            result.put("throughput", (double) recorder.getRequests() / config.durationSeconds);
+            result.put("p50", recorder.percentileMillis(50));
+            result.put("p90", recorder.percentileMillis(90));
+            result.put("p99", recorder.percentileMillis(99));
+            result.put("p999", recorder.percentileMillis(99.9));
+            results.put(entry.getKey(), result);
+            System.out.println(String.format("%-20s %10d %8d %10.1f %9.2f %9.2f %9.2f %9.2f",
+                    entry.getKey(), recorder.getRequests(), recorder.getErrors(), result.get("throughput"),
+                    result.get("p50"), result.get("p90"), result.get("p99"), result.get("p999")));
+        }
+
+        System.out.println(String.format("vote group commit %s: %d batches, %.1f votes/batch, largest %d",
+                groupCommit.isEnabled() ? "on" : "off", groupCommit.getBatches(), groupCommit.getAverageBatch(),
+                groupCommit.getLargestBatch()));
+
+        Map<String, Object> report = new LinkedHashMap<>();
+        report.put("timestamp", LocalDateTime.now().toString());
+        report.put("config", config.toMap());
+        report.put("endpoints", results);
+        report.put("voteGroupCommit", groupCommit);
+        report.put("benchmarks", benchmarks);
+        File file = new File(config.report);
+        file.getAbsoluteFile().getParentFile().mkdirs();
+        new ObjectMapper().writerWithDefaultPrettyPrinter().writeValue(file, report);
+        System.out.println("report written to " + file.getAbsolutePath());
+    }
+
+    private String nextEndpoint() {
+        int pick = ThreadLocalRandom.current().nextInt(cumulativeWeights[cumulativeWeights.length - 1]);
+        for (int i = 0; i < cumulativeWeights.length; i++) {
+            if (pick < cumulativeWeights[i]) {
+                return endpoints.get(i);
+            }
+        }
+        return endpoints.get(endpoints.size() - 1);
+    }
+
+    private int call(String endpoint) throws IOException {
+        switch (endpoint) {
+            case RS_LIST:
+                return request("GET", "/rs", null);
+            case RS_BY_ID:
+                return request("GET", "/rs/" + hotRsEventId(), null);
+            case VOTE:
+                return request("POST", "/rs/" + hotRsEventId() + "/vote",
+                        "{\"voteNum\":1,\"userId\":" + hotUserId()
+                                + ",\"voteTime\":\"" + LocalDateTime.now() + "\"}");
+            case VOTE_RANGE:
+                LocalDateTime start = LocalDateTime.now().minusDays(ThreadLocalRandom.current().nextInt(1, 30));
+                return request("GET", "/vote?startTime=" + start + "&endTime=" + start.plusDays(1), null);
+            case USER_LIST:
+                return request("GET", "/user", null);
+            case USER_BY_ID:
+                return request("GET", "/user/" + hotUserId(), null);
+            default:
+                throw new IllegalArgumentException(endpoint);
+        }
+    }
+
+    private Integer hotRsEventId() {
+        return rsEventIds.get(rsEventSampler.next());
+    }
+
+    private Integer hotUserId() {
+        return userIds.get(userSampler.next());
+    }
+
+    private int request(String method, String path, String body) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(baseUrl + path).openConnection();
+        connection.setRequestMethod(method);
+        connection.setRequestProperty("Accept-Encoding", "gzip");
+        if (body != null) {
+            connection.setDoOutput(true);
+            connection.setRequestProperty("Content-Type", "application/json");
+            try (OutputStream out = connection.getOutputStream()) {
+                out.write(body.getBytes(StandardCharsets.UTF_8));
+            }
+        }
+        int status = connection.getResponseCode();
+        InputStream in = status >= 400 ? connection.getErrorStream() : connection.getInputStream();
+        if (in != null) {
+            try (InputStream drained = in) {
+                byte[] buffer = new byte[8192];
+                while (drained.read(buffer) != -1) {
+                    // drain so the connection can be kept alive
+                }
+            }
+        }
+        return status;
+    }
+}
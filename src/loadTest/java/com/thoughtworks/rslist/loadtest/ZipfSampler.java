@@ -0,0 +1,31 @@
+package com.thoughtworks.rslist.loadtest;
+
+import java.util.Arrays;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Picks index i in [0, n) with probability proportional to 1 / (i + 1)^skew, so a handful of
+ * keys take most of the traffic. A skew of 0 is uniform.
+ */
+public class ZipfSampler {
+
+    private final double[] cumulative;
+
+    public ZipfSampler(int n, double skew) {
+        cumulative = new double[n];
+        double sum = 0;
+        for (int i = 0; i < n; i++) {
+            sum += 1 / Math.pow(i + 1, skew);
+            cumulative[i] = sum;
+        }
+        for (int i = 0; i < n; i++) {
+            cumulative[i] /= sum;
+        }
+    }
+
+    public int next() {
+        int index = Arrays.binarySearch(cumulative, ThreadLocalRandom.current().nextDouble());
+        int i = index >= 0 ? index : -index - 1;
+        return Math.min(i, cumulative.length - 1);
+    }
+}
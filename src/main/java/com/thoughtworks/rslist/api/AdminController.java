@@ -0,0 +1,103 @@
+package com.thoughtworks.rslist.api;
+
+import com.thoughtworks.rslist.domain.EventBusStats;
+import com.thoughtworks.rslist.domain.GroupCommitStats;
+import com.thoughtworks.rslist.domain.HeapReport;
+import com.thoughtworks.rslist.domain.SingleFlightStats;
+import com.thoughtworks.rslist.domain.VoteAnomaly;
+import com.thoughtworks.rslist.domain.VotePartition;
+import com.thoughtworks.rslist.entity.BudgetRefillRunEntity;
+import com.thoughtworks.rslist.event.DomainEventBus;
+import com.thoughtworks.rslist.observability.AllocationTracker;
+import com.thoughtworks.rslist.observability.GcPauseMonitor;
+import com.thoughtworks.rslist.observability.HeapHistogram;
+import com.thoughtworks.rslist.repository.BudgetRefillRunRepository;
+import com.thoughtworks.rslist.service.ReadCoalescer;
+import com.thoughtworks.rslist.service.VoteAnomalyDetector;
+import com.thoughtworks.rslist.service.VotePartitionManager;
+import com.thoughtworks.rslist.service.VoteService;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.ResponseEntity;
+import org.springframework.web.bind.annotation.GetMapping;
+import org.springframework.web.bind.annotation.RequestParam;
+import org.springframework.web.bind.annotation.RestController;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryUsage;
+import java.util.List;
+import java.util.Map;
+
+@RestController
+public class AdminController {
+
+    @Autowired
+    ReadCoalescer readCoalescer;
+    @Autowired
+    VotePartitionManager votePartitionManager;
+    @Autowired
+    BudgetRefillRunRepository budgetRefillRunRepository;
+    @Autowired
+    VoteAnomalyDetector voteAnomalyDetector;
+    @Autowired
+    DomainEventBus domainEventBus;
+    @Autowired
+    VoteService voteService;
+    @Autowired
+    AllocationTracker allocationTracker;
+    @Autowired
+    GcPauseMonitor gcPauseMonitor;
+    @Autowired
+    HeapHistogram heapHistogram;
+
+    @GetMapping("/admin/single-flight")
+    public ResponseEntity<Map<String, SingleFlightStats>> getSingleFlightStats() {
+        return ResponseEntity.ok(readCoalescer.getStats());
+    }
+
+    @GetMapping("/admin/vote-partitions")
+    public ResponseEntity<List<VotePartition>> getVotePartitions() {
+        return ResponseEntity.ok(votePartitionManager.getPartitions());
+    }
+
+    @GetMapping("/admin/budget-refills")
+    public ResponseEntity<List<BudgetRefillRunEntity>> getBudgetRefills() {
+        return ResponseEntity.ok(budgetRefillRunRepository.findTop20ByOrderByIdDesc());
+    }
+
+    @GetMapping("/admin/anomalies")
+    public ResponseEntity<List<VoteAnomaly>> getAnomalies() {
+        return ResponseEntity.ok(voteAnomalyDetector.getRecords());
+    }
+
+    @GetMapping("/admin/event-bus")
+    public ResponseEntity<EventBusStats> getEventBusStats() {
+        return ResponseEntity.ok(domainEventBus.getStats());
+    }
+
+    @GetMapping("/admin/vote-group-commit")
+    public ResponseEntity<GroupCommitStats> getVoteGroupCommitStats() {
+        return ResponseEntity.ok(voteService.getStats());
+    }
+
+    /**
+     * histogram=true forces a full GC to count live objects, at most once per
+     * rs.observability.histogram.min-interval-ms; otherwise the last histogram taken is returned.
+     */
+    @GetMapping("/admin/heap")
+    public ResponseEntity<HeapReport> getHeapReport(@RequestParam(defaultValue = "false") boolean histogram) {
+        if (histogram) {
+            heapHistogram.take();
+        }
+        MemoryUsage heap = ManagementFactory.getMemoryMXBean().getHeapMemoryUsage();
+        return ResponseEntity.ok(HeapReport.builder()
+                .heapUsed(heap.getUsed())
+                .heapCommitted(heap.getCommitted())
+                .heapMax(heap.getMax())
+                .allocationTracking(allocationTracker.isEnabled())
+                .allocations(allocationTracker.getAllocations())
+                .gcPauses(gcPauseMonitor.getStats())
+                .histogramTakenAt(heapHistogram.getTakenAt())
+                .histogram(heapHistogram.getClasses())
+                .build());
+    }
+}
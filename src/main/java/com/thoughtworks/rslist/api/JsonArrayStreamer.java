@@ -0,0 +1,101 @@
+package com.thoughtworks.rslist.api;
+
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.observability.AllocationTracker;
+import com.thoughtworks.rslist.observability.JfrEvents;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.http.MediaType;
+import org.springframework.http.ResponseEntity;
+import org.springframework.stereotype.Component;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
+
+import javax.persistence.EntityManager;
+import javax.persistence.PersistenceContext;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
+import java.util.Iterator;
+import java.util.function.Function;
+import java.util.function.Supplier;
+import java.util.stream.Stream;
+
+/**
+ * Writes a repository cursor or an iterator out as a JSON array one element at a time, so a list
+ * response never holds the whole result in memory and the client gets the first bytes right away.
+ */
+@Component
+public class JsonArrayStreamer {
+
+    private static final int FLUSH_EVERY = 500;
+
+    @Autowired
+    ObjectMapper objectMapper;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    AllocationTracker allocationTracker;
+    @PersistenceContext
+    EntityManager entityManager;
+
+    public <E, T> ResponseEntity<StreamingResponseBody> stream(Supplier<Stream<E>> query, Function<E, T> mapper) {
+        return respond(out -> {
+            TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+            transactionTemplate.setReadOnly(true);
+            return transactionTemplate.execute(status -> {
+                try (Stream<E> stream = query.get()) {
+                    return writeArray(out, stream.iterator(), mapper, entityManager::clear);
+                } catch (IOException e) {
+                    throw new UncheckedIOException(e);
+                }
+            });
+        });
+    }
+
+    public <T> ResponseEntity<StreamingResponseBody> stream(Iterator<T> items) {
+        return respond(out -> writeArray(out, items, Function.identity(), () -> {
+        }));
+    }
+
+    /**
+     * The body runs on an async thread after the handler has returned, so its allocation is
+     * recorded against the endpoint separately from the handler's.
+     */
+    private ResponseEntity<StreamingResponseBody> respond(ArrayWriter writer) {
+        String endpoint = allocationTracker.currentEndpoint();
+        StreamingResponseBody body = out -> {
+            JfrEvents.ListSerialization span = JfrEvents.listSerialization();
+            long allocatedBefore = allocationTracker.currentThreadAllocatedBytes();
+            int items = writer.write(out);
+            long allocated = allocatedBefore < 0 ? -1
+                    : allocationTracker.currentThreadAllocatedBytes() - allocatedBefore;
+            allocationTracker.record(endpoint, allocated, 0);
+            span.end(endpoint, items, allocated);
+        };
+        return ResponseEntity.ok().contentType(MediaType.APPLICATION_JSON).body(body);
+    }
+
+    private <E, T> int writeArray(OutputStream out, Iterator<E> items, Function<E, T> mapper,
+                                  Runnable afterFlush) throws IOException {
+        try (JsonGenerator generator = objectMapper.getFactory().createGenerator(out)) {
+            generator.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+            generator.writeStartArray();
+            int written = 0;
+            while (items.hasNext()) {
+                generator.writeObject(mapper.apply(items.next()));
+                if (++written % FLUSH_EVERY == 0) {
+                    generator.flush();
+                    afterFlush.run();
+                }
+            }
+            generator.writeEndArray();
+            return written;
+        }
+    }
+
+    private interface ArrayWriter {
+        int write(OutputStream out) throws IOException;
+    }
+}
@@ -1,29 +1,42 @@
 package com.thoughtworks.rslist.api;
 
 import com.thoughtworks.rslist.domain.CommonError;
+import com.thoughtworks.rslist.domain.EntityChange;
+import com.thoughtworks.rslist.domain.FieldViolation;
 import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.RsEventStats;
 import com.thoughtworks.rslist.domain.User;
 import com.thoughtworks.rslist.domain.Vote;
+import com.thoughtworks.rslist.domain.VoteResult;
 import com.thoughtworks.rslist.entity.RsEventEntitiy;
-import com.thoughtworks.rslist.entity.UserEntity;
-import com.thoughtworks.rslist.entity.VoteEntity;
+import com.thoughtworks.rslist.event.DomainEventBus;
+import com.thoughtworks.rslist.event.RsEventCreatedEvent;
+import com.thoughtworks.rslist.event.RsEventDeletedEvent;
+import com.thoughtworks.rslist.event.RsEventUpdatedEvent;
 import com.thoughtworks.rslist.exception.InvalidIndexException;
+import com.thoughtworks.rslist.exception.VoteCommitException;
 import com.thoughtworks.rslist.repository.RsEventRepository;
-import com.thoughtworks.rslist.repository.UserRepository;
 import com.thoughtworks.rslist.repository.VoteRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.thoughtworks.rslist.service.ChangeFeed;
+import com.thoughtworks.rslist.service.ReadCoalescer;
+import com.thoughtworks.rslist.service.RsEventSnapshot;
+import com.thoughtworks.rslist.service.RsEventStatsService;
+import com.thoughtworks.rslist.service.VoteCounterService;
+import com.thoughtworks.rslist.service.VoteService;
+import com.thoughtworks.rslist.validation.DomainValidator;
 import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
 import org.springframework.transaction.annotation.Transactional;
 import org.springframework.util.StringUtils;
-import org.springframework.web.bind.MethodArgumentNotValidException;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
-import javax.validation.Valid;
+import javax.servlet.http.HttpServletRequest;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.Map;
 import java.util.Optional;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
@@ -31,48 +44,80 @@ import java.util.stream.Stream;
 @RestController
 public class RsController {
 
-    @Autowired
-    UserRepository userRepository;
     @Autowired
     RsEventRepository rsEventRepository;
     @Autowired
     VoteRepository voteRepository;
+    @Autowired
+    VoteCounterService voteCounterService;
+    @Autowired
+    ReadCoalescer readCoalescer;
+    @Autowired
+    JsonArrayStreamer jsonArrayStreamer;
+    @Autowired
+    RsEventSnapshot rsEventSnapshot;
+    @Autowired
+    ChangeFeed changeFeed;
+    @Autowired
+    RsEventStatsService rsEventStatsService;
+    @Autowired
+    DomainEventBus domainEventBus;
+    @Autowired
+    DomainValidator domainValidator;
+    @Autowired
+    VoteService voteService;
 
-    Logger logger = LoggerFactory.getLogger(RsController.class);
+    @Value("${rs.anomaly.trust-forwarded-for:false}")
+    boolean trustForwardedFor;
 
     @GetMapping("/rs/{id}")
     public ResponseEntity getOneRsById(@PathVariable Integer id) throws InvalidIndexException {
-        Optional<RsEventEntitiy> entitiyOptional = rsEventRepository.findById(id);
-        if (entitiyOptional.isPresent()) {
-            RsEventEntitiy entitiy = entitiyOptional.get();
-            RsEvent rsEvent = RsEvent.builder()
-                    .eventName(entitiy.getEventName())
-                    .keyword(entitiy.getKeyword())
-                    .id(entitiy.getId())
-                    .voteNum(entitiy.getVoteNum())
-                    .build();
-            return ResponseEntity.ok(rsEvent);
+        Optional<RsEvent> snapshotRsEvent = rsEventSnapshot.get(id);
+        if (snapshotRsEvent.isPresent()) {
+            return ResponseEntity.ok(snapshotRsEvent.get());
+        }
+        Optional<RsEvent> rsEvent = readCoalescer.findRsEventById(id);
+        if (rsEvent.isPresent()) {
+            return ResponseEntity.ok(rsEvent.get());
         } else {
             return ResponseEntity.badRequest().body(new CommonError("invalid id"));
         }
     }
 
+    @GetMapping("/rs/{id}/stats")
+    public ResponseEntity getRsEventStats(@PathVariable Integer id, @RequestParam(defaultValue = "7") int days) {
+        if (!rsEventSnapshot.get(id).isPresent() && !rsEventRepository.existsById(id)) {
+            return ResponseEntity.badRequest().body(new CommonError("invalid id"));
+        }
+        RsEventStats stats = rsEventStatsService.getStats(id, days);
+        return ResponseEntity.ok(stats);
+    }
+
     @GetMapping("/rs")
-    public ResponseEntity<List<RsEvent>> getRsList() {
-        List<RsEventEntitiy> rsEventEntitiys = rsEventRepository.findAll();
-        List<RsEvent> rsEvents = rsEventEntitiys.stream()
-                .map(entity -> RsEvent.builder()
+    public ResponseEntity<StreamingResponseBody> getRsList(@RequestParam(required = false) String keyword,
+                                                           @RequestParam(required = false) Integer userId) {
+        if (rsEventSnapshot.isLoaded()) {
+            return jsonArrayStreamer.stream(rsEventSnapshot.select(keyword, userId));
+        }
+        Map<Integer, Integer> shardedVoteNums = voteCounterService.getShardedVoteNums();
+        return jsonArrayStreamer.stream(() -> rsEventRepository.streamAll()
+                        .filter(entity -> keyword == null || keyword.equals(entity.getKeyword()))
+                        .filter(entity -> userId == null || userId.equals(entity.getUserId())),
+                entity -> RsEvent.builder()
                         .eventName(entity.getEventName())
                         .keyword(entity.getKeyword())
                         .id(entity.getId())
-                        .voteNum(entity.getVoteNum())
-                        .build()
-                ).collect(Collectors.toList());
-        return ResponseEntity.ok(rsEvents);
+                        .voteNum(entity.getVoteNum() + shardedVoteNums.getOrDefault(entity.getId(), 0))
+                        .build());
     }
 
+    @Transactional
     @PostMapping("/rs")
-    public ResponseEntity addRsEvent(@RequestBody @Valid RsEvent rsEvent) {
+    public ResponseEntity addRsEvent(@RequestBody RsEvent rsEvent) {
+        List<FieldViolation> violations = domainValidator.validate(rsEvent);
+        if (!violations.isEmpty()) {
+            return invalidParam(violations);
+        }
         if (isRegistered(rsEvent.getUserId())) {
             RsEventEntitiy entitiy = RsEventEntitiy.builder()
                     .eventName(rsEvent.getEventName())
@@ -81,6 +126,8 @@ public class RsController {
                     .voteNum(0)
                     .build();
             rsEventRepository.save(entitiy);
+            changeFeed.publish(EntityChange.EntityType.RS_EVENT, entitiy.getId(), EntityChange.ChangeType.CREATE, 0);
+            domainEventBus.publishAfterCommit(new RsEventCreatedEvent(entitiy.getId(), entitiy.getUserId()));
             return ResponseEntity.created(null).build();
         } else {
             return ResponseEntity.badRequest().build();
@@ -88,9 +135,10 @@ public class RsController {
     }
 
     private boolean isRegistered(Integer userId) {
-        return userRepository.findById(userId).isPresent();
+        return readCoalescer.findUserById(userId).isPresent();
     }
 
+    @Transactional
     @PatchMapping("/rs/{id}")
     public ResponseEntity updateRsEvent(@PathVariable Integer id, @RequestBody RsEvent rsEvent) {
         Optional<RsEventEntitiy> entitiyOptional = rsEventRepository.findById(id);
@@ -104,68 +152,63 @@ public class RsController {
                 entitiy.setKeyword(rsEvent.getKeyword());
             }
             rsEventRepository.save(entitiy);
+            changeFeed.publish(EntityChange.EntityType.RS_EVENT, id, EntityChange.ChangeType.UPDATE, 0);
+            domainEventBus.publishAfterCommit(new RsEventUpdatedEvent(id));
             return ResponseEntity.ok().build();
         } else {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @Transactional
     @DeleteMapping("/rs/{id}")
     public ResponseEntity<Void> deleteRsEvent(@PathVariable Integer id) {
         rsEventRepository.deleteById(id);
+        changeFeed.publish(EntityChange.EntityType.RS_EVENT, id, EntityChange.ChangeType.DELETE, 0);
+        domainEventBus.publishAfterCommit(new RsEventDeletedEvent(id));
         return ResponseEntity.status(HttpStatus.OK).body(null);
     }
 
-    @Transactional
     @PostMapping("/rs/{rsEventId}/vote")
-    public ResponseEntity vote(@PathVariable Integer rsEventId, @RequestBody @Valid Vote vote) {
-        Optional<RsEventEntitiy> rsEventEntitiyOptional = rsEventRepository.findById(rsEventId);
-        if (!rsEventEntitiyOptional.isPresent())
-            return ResponseEntity.badRequest().build();
-        RsEventEntitiy rsEventEntitiy = rsEventEntitiyOptional.get();
-
-        Optional<UserEntity> userEntityOptional = userRepository.findById(vote.getUserId());
-        if (!userEntityOptional.isPresent())
-            return ResponseEntity.badRequest().build();
-        UserEntity userEntity = userEntityOptional.get();
-
-        if (vote.getVoteNum() > userEntity.getVoteNum())
+    public ResponseEntity vote(@PathVariable Integer rsEventId, @RequestBody Vote vote,
+                               HttpServletRequest request) {
+        List<FieldViolation> violations = domainValidator.validate(vote);
+        if (!violations.isEmpty()) {
+            return invalidParam(violations);
+        }
+        VoteResult result;
+        try {
+            result = voteService.vote(rsEventId, vote.getUserId(), vote.getVoteNum(),
+                    LocalDateTime.parse(vote.getVoteTime()), clientAddress(request));
+        } catch (VoteCommitException e) {
+            return ResponseEntity.status(HttpStatus.SERVICE_UNAVAILABLE).body(new CommonError(e.getMessage()));
+        }
+        if (result != VoteResult.ACCEPTED) {
             return ResponseEntity.badRequest().build();
-
-        VoteEntity voteEntity = VoteEntity.builder()
-                .voteNum(vote.getVoteNum())
-                .voteTime(LocalDateTime.parse(vote.getVoteTime()))
-                .rsEventId(rsEventEntitiy.getId())
-                .userId(userEntity.getId())
-                .build();
-
-        userEntity.setVoteNum(userEntity.getVoteNum() - vote.getVoteNum());
-        rsEventEntitiy.setVoteNum(rsEventEntitiy.getVoteNum() + vote.getVoteNum());
-        voteRepository.save(voteEntity);
-        userRepository.save(userEntity);
-        rsEventRepository.save(rsEventEntitiy);
-
+        }
         return ResponseEntity.created(null).build();
     }
 
+    private String clientAddress(HttpServletRequest request) {
+        String forwardedFor = request.getHeader("X-Forwarded-For");
+        if (trustForwardedFor && !StringUtils.isEmpty(forwardedFor)) {
+            int end = forwardedFor.indexOf(',');
+            return (end < 0 ? forwardedFor : forwardedFor.substring(0, end)).trim();
+        }
+        return request.getRemoteAddr();
+    }
+
     @GetMapping("/vote")
-    public ResponseEntity<List<Vote>> getVoteListBetweenTime(@RequestParam String startTime, @RequestParam String endTime) {
+    public ResponseEntity<StreamingResponseBody> getVoteListBetweenTime(@RequestParam String startTime, @RequestParam String endTime) {
         LocalDateTime start = LocalDateTime.parse(startTime);
         LocalDateTime end = LocalDateTime.parse(endTime);
-        List<VoteEntity> voteEntities = voteRepository.findAllByVoteTimeBetween(start, end);
-        List<Vote> voteList = voteEntities.stream()
-                .map(entity ->
-                        new Vote(entity.getId(), entity.getVoteNum(),
-                                entity.getUserId(), entity.getVoteTime().toString()))
-                .collect(Collectors.toList());
-        return ResponseEntity.ok(voteList);
+        return jsonArrayStreamer.stream(() -> voteRepository.streamAllByVoteTimeBetween(start, end),
+                view -> new Vote(view.getId(), view.getVoteNum(),
+                        view.getUserId(), view.getVoteTime().toString()));
     }
 
-    @ExceptionHandler({MethodArgumentNotValidException.class})
-    public ResponseEntity<CommonError> handleException(Exception ex) {
-        CommonError err = new CommonError("invalid param");
-        logger.error(ex.getClass() + ": invalid param");
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
+    private ResponseEntity<CommonError> invalidParam(List<FieldViolation> violations) {
+        domainValidator.rejected("invalid param", violations);
+        return ResponseEntity.badRequest().body(new CommonError("invalid param", violations));
     }
-
 }
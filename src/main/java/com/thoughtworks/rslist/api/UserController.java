@@ -1,17 +1,21 @@
 package com.thoughtworks.rslist.api;
 
 import com.thoughtworks.rslist.domain.CommonError;
+import com.thoughtworks.rslist.domain.EntityChange;
+import com.thoughtworks.rslist.domain.FieldViolation;
 import com.thoughtworks.rslist.domain.User;
 import com.thoughtworks.rslist.entity.UserEntity;
 import com.thoughtworks.rslist.repository.UserRepository;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
+import com.thoughtworks.rslist.service.BudgetRefillService;
+import com.thoughtworks.rslist.service.ChangeFeed;
+import com.thoughtworks.rslist.service.ReadCoalescer;
+import com.thoughtworks.rslist.validation.DomainValidator;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.http.HttpStatus;
 import org.springframework.http.ResponseEntity;
-import org.springframework.web.bind.MethodArgumentNotValidException;
+import org.springframework.transaction.annotation.Transactional;
 import org.springframework.web.bind.annotation.*;
-import javax.validation.Valid;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 import java.util.List;
 import java.util.Optional;
 import java.util.stream.Collectors;
@@ -21,33 +25,45 @@ public class UserController {
 
     @Autowired
     UserRepository userRepository;
-
-    Logger logger = LoggerFactory.getLogger(RsController.class);
+    @Autowired
+    ReadCoalescer readCoalescer;
+    @Autowired
+    JsonArrayStreamer jsonArrayStreamer;
+    @Autowired
+    ChangeFeed changeFeed;
+    @Autowired
+    BudgetRefillService budgetRefillService;
+    @Autowired
+    DomainValidator domainValidator;
 
     @GetMapping("/user")
-    public ResponseEntity<List<User>> getUsers() {
-        List<UserEntity> userEntities = userRepository.findAll();
-        List<User> users = userEntities.stream().map(
+    public ResponseEntity<StreamingResponseBody> getUsers() {
+        return jsonArrayStreamer.stream(() -> userRepository.streamAll(),
                 entity -> User.builder()
                         .userName(entity.getName())
                         .age(entity.getAge())
                         .gender(entity.getGender())
                         .email(entity.getEmail())
                         .phone(entity.getPhone())
-                        .build()
-        ).collect(Collectors.toList());
-        return ResponseEntity.ok(users);
+                        .build());
     }
 
     @PostMapping("/user")
-    public ResponseEntity addUser(@RequestBody @Valid User user) {
+    public ResponseEntity addUser(@RequestBody User user) {
+        List<FieldViolation> violations = domainValidator.validate(user);
+        if (!violations.isEmpty()) {
+            domainValidator.rejected("invalid user", violations);
+            return ResponseEntity.badRequest().body(new CommonError("invalid user", violations));
+        }
+        String tier = budgetRefillService.getDefaultTier();
         UserEntity userEntity = UserEntity.builder()
                 .name(user.getUserName())
                 .age(user.getAge())
                 .gender(user.getGender())
                 .email(user.getEmail())
                 .phone(user.getPhone())
-                .voteNum(10)
+                .voteNum(budgetRefillService.initialBudget(tier))
+                .tier(tier)
                 .build();
         userRepository.save(userEntity);
         return ResponseEntity.status(HttpStatus.CREATED).body(null);
@@ -55,32 +71,19 @@ public class UserController {
 
     @GetMapping("/user/{id}")
     public ResponseEntity<User> getOne(@PathVariable Integer id) {
-        Optional<UserEntity> optionalUserEntity = userRepository.findById(id);
-        if (optionalUserEntity.isPresent()) {
-            UserEntity userEntity = optionalUserEntity.get();
-            User user = User.builder()
-                    .userName(userEntity.getName())
-                    .age(userEntity.getAge())
-                    .gender(userEntity.getGender())
-                    .email(userEntity.getEmail())
-                    .phone(userEntity.getPhone())
-                    .build();
-            return ResponseEntity.ok(user);
+        Optional<User> user = readCoalescer.findUserById(id);
+        if (user.isPresent()) {
+            return ResponseEntity.ok(user.get());
         } else {
             return ResponseEntity.badRequest().build();
         }
     }
 
+    @Transactional
     @DeleteMapping("/user/{id}")
     public ResponseEntity deleteUser(@PathVariable Integer id) {
         userRepository.deleteById(id);
+        changeFeed.publish(EntityChange.EntityType.USER, id, EntityChange.ChangeType.DELETE, 0);
         return ResponseEntity.ok().build();
     }
-
-    @ExceptionHandler(MethodArgumentNotValidException.class)
-    public ResponseEntity<CommonError> handleException(MethodArgumentNotValidException ex) {
-        CommonError err = new CommonError("invalid user");
-        logger.error(ex.getClass() + ": invalid user");
-        return ResponseEntity.status(HttpStatus.BAD_REQUEST).body(err);
-    }
 }
@@ -1,12 +1,23 @@
 package com.thoughtworks.rslist.domain;
 
+import com.fasterxml.jackson.annotation.JsonInclude;
 import lombok.Data;
 
+import java.util.List;
+
 @Data
 public class CommonError {
     private String error;
 
+    @JsonInclude(JsonInclude.Include.NON_EMPTY)
+    private List<FieldViolation> violations;
+
     public CommonError(String error) {
         this.error = error;
     }
+
+    public CommonError(String error, List<FieldViolation> violations) {
+        this.error = error;
+        this.violations = violations;
+    }
 }
@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EndpointAllocation {
+    private String endpoint;
+    private long requests;
+    private long allocatedBytes;
+    private long bytesPerRequest;
+    private long recentBytesPerSecond;
+}
@@ -0,0 +1,27 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EntityChange {
+
+    public enum EntityType {
+        RS_EVENT, USER
+    }
+
+    public enum ChangeType {
+        CREATE, VOTE, UPDATE, DELETE
+    }
+
+    private String nodeId;
+    private EntityType entityType;
+    private Integer entityId;
+    private ChangeType changeType;
+    private int voteDelta;
+}
@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventBusStats {
+    private int capacity;
+    private String backpressure;
+    private long published;
+    private long dropped;
+    private int overflowed;
+    private List<EventConsumerStats> consumers;
+}
@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class EventConsumerStats {
+    private String name;
+    private long position;
+    private long lag;
+    private long lagMillis;
+    private long processed;
+    private long batches;
+    private long failures;
+    private int maxBatch;
+}
@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GcPauseStats {
+    private String collector;
+    private String action;
+    private long count;
+    private long totalMillis;
+    private long maxMillis;
+    private Map<String, Long> histogram;
+}
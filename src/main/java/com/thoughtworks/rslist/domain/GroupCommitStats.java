@@ -0,0 +1,23 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class GroupCommitStats {
+    private boolean enabled;
+    private int maxBatch;
+    private long lingerMillis;
+    private int queued;
+    private long batches;
+    private long votes;
+    private double averageBatch;
+    private int largestBatch;
+    private long retriedBatches;
+    private long directCommits;
+}
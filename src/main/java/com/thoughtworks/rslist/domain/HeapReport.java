@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+import java.util.List;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class HeapReport {
+    private long heapUsed;
+    private long heapCommitted;
+    private long heapMax;
+    private boolean allocationTracking;
+    private List<EndpointAllocation> allocations;
+    private List<GcPauseStats> gcPauses;
+    private LocalDateTime histogramTakenAt;
+    private List<HeapClassUsage> histogram;
+}
@@ -0,0 +1,23 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxVote {
+    private long sequence;
+    private Integer voteId;
+    private Integer rsEventId;
+    private Integer userId;
+    private Integer voteNum;
+    private LocalDateTime voteTime;
+    private boolean quarantined;
+    private LocalDateTime createdAt;
+}
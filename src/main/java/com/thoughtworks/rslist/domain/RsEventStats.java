@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDate;
+import java.util.Map;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RsEventStats {
+    private Integer rsEventId;
+    private LocalDate from;
+    private LocalDate to;
+    private long votes;
+    private long distinctVoters;
+    private double distinctVotersError;
+    private Map<String, Double> voteSizeQuantiles;
+    private double voteSizeError;
+}
@@ -0,0 +1,15 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class SingleFlightStats {
+    private long calls;
+    private long loads;
+    private long deduplicated;
+    private int inFlight;
+}
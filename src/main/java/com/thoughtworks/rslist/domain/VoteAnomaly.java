@@ -0,0 +1,23 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VoteAnomaly {
+    private LocalDateTime detectedAt;
+    private String rule;
+    private Integer userId;
+    private Integer rsEventId;
+    private String subnet;
+    private long observed;
+    private long threshold;
+    private boolean quarantined;
+}
@@ -0,0 +1,14 @@
+package com.thoughtworks.rslist.domain;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class VotePartition {
+    private String name;
+    private String lessThan;
+    private long rows;
+}
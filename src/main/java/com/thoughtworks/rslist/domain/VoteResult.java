@@ -0,0 +1,8 @@
+package com.thoughtworks.rslist.domain;
+
+public enum VoteResult {
+    ACCEPTED,
+    UNKNOWN_RS_EVENT,
+    UNKNOWN_USER,
+    NOT_ENOUGH_VOTES
+}
@@ -0,0 +1,14 @@
+package com.thoughtworks.rslist.domain;
+
+import java.time.LocalDateTime;
+
+public interface VoteView {
+
+    Integer getId();
+
+    Integer getVoteNum();
+
+    Integer getUserId();
+
+    LocalDateTime getVoteTime();
+}
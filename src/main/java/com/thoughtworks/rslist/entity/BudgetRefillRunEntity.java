@@ -0,0 +1,56 @@
+package com.thoughtworks.rslist.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "budget_refill_run",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"tier", "period_start"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class BudgetRefillRunEntity {
+
+    public static final String RUNNING = "RUNNING";
+    public static final String DONE = "DONE";
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    private String tier;
+
+    @Column(name = "period_start")
+    private LocalDate periodStart;
+
+    private Integer budget;
+
+    private String status;
+
+    private Integer lastUserId;
+
+    private long rowsUpdated;
+
+    private int chunks;
+
+    private long lockMillis;
+
+    private long maxChunkMillis;
+
+    private long throttledMillis;
+
+    private String owner;
+
+    private LocalDateTime leaseUntil;
+
+    private LocalDateTime startedAt;
+
+    private LocalDateTime finishedAt;
+}
@@ -0,0 +1,37 @@
+package com.thoughtworks.rslist.entity;
+
+import com.thoughtworks.rslist.domain.EntityChange;
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "change_feed")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class ChangeFeedEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.IDENTITY)
+    private Long id;
+
+    private String nodeId;
+
+    @Enumerated(EnumType.STRING)
+    private EntityChange.EntityType entityType;
+
+    private Integer entityId;
+
+    @Enumerated(EnumType.STRING)
+    private EntityChange.ChangeType changeType;
+
+    private int voteDelta;
+
+    private LocalDateTime createdAt;
+}
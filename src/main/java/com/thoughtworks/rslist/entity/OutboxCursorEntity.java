@@ -0,0 +1,31 @@
+package com.thoughtworks.rslist.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.Entity;
+import javax.persistence.Id;
+import javax.persistence.Table;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "outbox_cursor")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class OutboxCursorEntity {
+
+    @Id
+    private String name;
+
+    private long position;
+
+    private String owner;
+
+    private LocalDateTime leaseUntil;
+
+    private LocalDateTime updatedAt;
+}
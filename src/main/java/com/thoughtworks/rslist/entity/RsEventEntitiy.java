@@ -1,14 +1,17 @@
 package com.thoughtworks.rslist.entity;
 
+import com.thoughtworks.rslist.service.RsEventSnapshotListener;
 import lombok.AllArgsConstructor;
 import lombok.Builder;
 import lombok.Data;
 import lombok.NoArgsConstructor;
 
 import javax.persistence.*;
+import java.util.List;
 
 @Entity
 @Table(name = "rs_event")
+@EntityListeners(RsEventSnapshotListener.class)
 @Data
 @NoArgsConstructor
 @AllArgsConstructor
@@ -25,10 +28,15 @@ public class RsEventEntitiy {
 
     private Integer voteNum;
 
+    private int voteShardCount;
+
     @Column(name = "user_id")
     private Integer userId;
 
     @ManyToOne(fetch = FetchType.LAZY)
     @JoinColumn(name="user_id", insertable = false, updatable = false)
     private UserEntity user;
+
+    @OneToMany(cascade = CascadeType.REMOVE, mappedBy = "rsEventId")
+    private List<RsEventVoteShardEntity> voteShards;
 }
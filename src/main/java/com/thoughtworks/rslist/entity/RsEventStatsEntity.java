@@ -0,0 +1,36 @@
+package com.thoughtworks.rslist.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDate;
+
+@Entity
+@Table(name = "rs_event_stats",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"rs_event_id", "stats_day"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RsEventStatsEntity {
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @Column(name = "rs_event_id")
+    private Integer rsEventId;
+
+    @Column(name = "stats_day")
+    private LocalDate day;
+
+    private long votes;
+
+    @Lob
+    private byte[] voters;
+
+    @Lob
+    private byte[] voteSizes;
+}
@@ -0,0 +1,30 @@
+package com.thoughtworks.rslist.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+
+@Entity
+@Table(name = "rs_event_vote_shard",
+        uniqueConstraints = @UniqueConstraint(columnNames = {"rs_event_id", "shard_index"}))
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class RsEventVoteShardEntity {
+
+    @Id
+    @GeneratedValue
+    private Integer id;
+
+    @Column(name = "rs_event_id")
+    private Integer rsEventId;
+
+    @Column(name = "shard_index")
+    private Integer shardIndex;
+
+    private Integer voteNum;
+}
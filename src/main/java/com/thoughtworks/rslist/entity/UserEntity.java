@@ -25,6 +25,7 @@ public class UserEntity {
     private String email;
     private String phone;
     private Integer voteNum;
+    private String tier;
 
     @OneToMany(cascade = CascadeType.REMOVE, mappedBy = "userId")
     private List<RsEventEntitiy> rsEventList;
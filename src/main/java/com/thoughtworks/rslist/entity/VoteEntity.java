@@ -15,11 +15,13 @@ import java.time.LocalDateTime;
 @Builder
 public class VoteEntity {
     @Id
-    @GeneratedValue
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vote_id")
+    @SequenceGenerator(name = "vote_id", sequenceName = "vote_id_sequence", allocationSize = 50)
     private Integer id;
 
     private Integer voteNum;
 
+    @Column(nullable = false)
     private LocalDateTime voteTime;
 
     @Column(name = "user_id")
@@ -28,11 +30,15 @@ public class VoteEntity {
     @Column(name = "rs_event_id")
     private Integer rsEventId;
 
+    private boolean quarantined;
+
     @ManyToOne
-    @JoinColumn(name = "user_id", insertable = false, updatable = false)
+    @JoinColumn(name = "user_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private UserEntity user;
 
     @ManyToOne
-    @JoinColumn(name = "rs_event_id", insertable = false, updatable = false)
+    @JoinColumn(name = "rs_event_id", insertable = false, updatable = false,
+            foreignKey = @ForeignKey(ConstraintMode.NO_CONSTRAINT))
     private RsEventEntitiy rsEvent;
 }
@@ -0,0 +1,37 @@
+package com.thoughtworks.rslist.entity;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import javax.persistence.*;
+import java.time.LocalDateTime;
+
+@Entity
+@Table(name = "vote_outbox")
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VoteOutboxEntity {
+
+    @Id
+    @GeneratedValue(strategy = GenerationType.SEQUENCE, generator = "vote_outbox_id")
+    @SequenceGenerator(name = "vote_outbox_id", sequenceName = "vote_outbox_id_sequence", allocationSize = 50)
+    private Long id;
+
+    private Integer voteId;
+
+    private Integer rsEventId;
+
+    private Integer userId;
+
+    private Integer voteNum;
+
+    private LocalDateTime voteTime;
+
+    private boolean quarantined;
+
+    private LocalDateTime createdAt;
+}
@@ -0,0 +1,7 @@
+package com.thoughtworks.rslist.event;
+
+/**
+ * Something that happened in a committed transaction, published on the {@link DomainEventBus}.
+ */
+public interface DomainEvent {
+}
@@ -0,0 +1,320 @@
+package com.thoughtworks.rslist.event;
+
+import com.thoughtworks.rslist.domain.EventBusStats;
+import com.thoughtworks.rslist.domain.EventConsumerStats;
+import com.thoughtworks.rslist.service.AfterCommit;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Queue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.stream.Collectors;
+
+/**
+ * Bounded in-process event bus. Events go into a ring of rs.event-bus.capacity slots; every
+ * consumer has its own thread and read position and takes all available events in one batch, so
+ * a slow consumer only delays itself until the ring fills up. On a full ring the publisher either
+ * waits up to rs.event-bus.block-timeout-ms for the slowest consumer (block) or drops the event
+ * straight away (drop); either way a dropped event is counted, never thrown to the caller.
+ * {@link LosslessDomainEvent}s are never dropped while the bus runs: after waiting the block
+ * timeout they spill into an unbounded overflow queue that moves back into the ring as consumers
+ * catch up, so a stuck consumer costs memory rather than stalling the publisher. While the
+ * overflow holds events the ring counts as full, which keeps events in publish order.
+ */
+@Component
+public class DomainEventBus {
+
+    @Autowired(required = false)
+    List<DomainEventConsumer> consumers = Collections.emptyList();
+
+    @Value("${rs.event-bus.capacity:8192}")
+    int capacity;
+    @Value("${rs.event-bus.max-batch:256}")
+    int maxBatch;
+    @Value("${rs.event-bus.backpressure:block}")
+    String backpressure;
+    @Value("${rs.event-bus.block-timeout-ms:100}")
+    long blockTimeoutMillis;
+
+    private final ReentrantLock lock = new ReentrantLock();
+    private final Condition notEmpty = lock.newCondition();
+    private final Condition notFull = lock.newCondition();
+    private DomainEvent[] ring;
+    private long[] publishedAt;
+    private int mask;
+    private volatile long published;
+    private volatile boolean running;
+    private final LongAdder dropped = new LongAdder();
+    private final Queue<DomainEvent> overflow = new ArrayDeque<>();
+    private final Queue<Long> overflowedAt = new ArrayDeque<>();
+    private List<Worker> workers = Collections.emptyList();
+
+    Logger logger = LoggerFactory.getLogger(DomainEventBus.class);
+
+    @PostConstruct
+    public void start() {
+        int size = Integer.highestOneBit(Math.max(2, capacity - 1)) << 1;
+        ring = new DomainEvent[size];
+        publishedAt = new long[size];
+        mask = size - 1;
+        capacity = size;
+        running = true;
+        workers = consumers.stream().map(Worker::new).collect(Collectors.toList());
+        workers.forEach(worker -> worker.thread.start());
+    }
+
+    /**
+     * Publishes once the current transaction commits, or right away outside a transaction.
+     */
+    public void publishAfterCommit(DomainEvent event) {
+        AfterCommit.run(() -> publish(event));
+    }
+
+    public boolean publish(DomainEvent event) {
+        if (workers.isEmpty()) {
+            return true;
+        }
+        boolean lossless = event instanceof LosslessDomainEvent;
+        lock.lock();
+        try {
+            long nanos = lossless || !"drop".equalsIgnoreCase(backpressure)
+                    ? TimeUnit.MILLISECONDS.toNanos(blockTimeoutMillis) : 0;
+            while (isFull()) {
+                if (!running) {
+                    dropped.increment();
+                    return false;
+                }
+                if (lossless && (nanos <= 0 || !overflow.isEmpty())) {
+                    spill(event);
+                    return true;
+                }
+                if (nanos <= 0) {
+                    dropped.increment();
+                    return false;
+                }
+                nanos = notFull.awaitNanos(nanos);
+            }
+            append(event, System.currentTimeMillis());
+            return true;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            if (lossless && running) {
+                spill(event);
+                return true;
+            }
+            dropped.increment();
+            return false;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Called with the lock held.
+     */
+    private boolean isFull() {
+        return !overflow.isEmpty() || published - slowestPosition() >= capacity;
+    }
+
+    private void append(DomainEvent event, long timestamp) {
+        int slot = (int) (published & mask);
+        ring[slot] = event;
+        publishedAt[slot] = timestamp;
+        published++;
+        notEmpty.signalAll();
+    }
+
+    private void spill(DomainEvent event) {
+        if (overflow.isEmpty()) {
+            logger.warn("event bus full for " + blockTimeoutMillis + "ms, spilling lossless events to overflow; "
+                    + "slowest consumer lags " + (published - slowestPosition()) + " events");
+        }
+        overflow.add(event);
+        overflowedAt.add(System.currentTimeMillis());
+    }
+
+    /**
+     * Moves overflowed events into the slots consumers have freed. Called with the lock held.
+     */
+    private void drainOverflow() {
+        while (!overflow.isEmpty() && published - slowestPosition() < capacity) {
+            append(overflow.poll(), overflowedAt.poll());
+        }
+    }
+
+    /**
+     * Waits until every consumer has handled everything published so far.
+     */
+    public boolean awaitDrained(long timeoutMillis) {
+        long target;
+        lock.lock();
+        try {
+            target = published + overflow.size();
+        } finally {
+            lock.unlock();
+        }
+        long deadline = System.currentTimeMillis() + timeoutMillis;
+        while (slowestPosition() < target) {
+            if (System.currentTimeMillis() > deadline) {
+                return false;
+            }
+            lock.lock();
+            try {
+                notFull.await(10, TimeUnit.MILLISECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                return false;
+            } finally {
+                lock.unlock();
+            }
+        }
+        return true;
+    }
+
+    public EventBusStats getStats() {
+        long head = published;
+        long now = System.currentTimeMillis();
+        List<EventConsumerStats> consumerStats = new ArrayList<>();
+        for (Worker worker : workers) {
+            long position = worker.position;
+            long lag = head - position;
+            consumerStats.add(EventConsumerStats.builder()
+                    .name(worker.consumer.getConsumerName())
+                    .position(position)
+                    .lag(lag)
+                    .lagMillis(lag > 0 ? now - publishedAt[(int) (position & mask)] : 0)
+                    .processed(worker.processed.sum())
+                    .batches(worker.batches.sum())
+                    .failures(worker.failures.sum())
+                    .maxBatch(worker.largestBatch)
+                    .build());
+        }
+        return EventBusStats.builder()
+                .capacity(capacity)
+                .backpressure(backpressure)
+                .published(head)
+                .dropped(dropped.sum())
+                .overflowed(overflowSize())
+                .consumers(consumerStats)
+                .build();
+    }
+
+    private int overflowSize() {
+        lock.lock();
+        try {
+            return overflow.size();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        awaitDrained(TimeUnit.SECONDS.toMillis(5));
+        lock.lock();
+        try {
+            running = false;
+            dropped.add(overflow.size());
+            overflow.clear();
+            overflowedAt.clear();
+            notEmpty.signalAll();
+            notFull.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Worker worker : workers) {
+            try {
+                worker.thread.join(1000);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+        }
+    }
+
+    private long slowestPosition() {
+        long slowest = published;
+        for (Worker worker : workers) {
+            slowest = Math.min(slowest, worker.position);
+        }
+        return slowest;
+    }
+
+    private class Worker implements Runnable {
+        private final DomainEventConsumer consumer;
+        private final Thread thread;
+        private volatile long position;
+        private volatile int largestBatch;
+        private final LongAdder processed = new LongAdder();
+        private final LongAdder batches = new LongAdder();
+        private final LongAdder failures = new LongAdder();
+
+        Worker(DomainEventConsumer consumer) {
+            this.consumer = consumer;
+            this.position = published;
+            this.thread = new Thread(this, "event-bus-" + consumer.getConsumerName());
+            this.thread.setDaemon(true);
+        }
+
+        @Override
+        public void run() {
+            while (true) {
+                List<DomainEvent> batch;
+                long end;
+                lock.lock();
+                try {
+                    while (position == published && running) {
+                        notEmpty.await();
+                    }
+                    if (position == published) {
+                        return;
+                    }
+                    end = Math.min(published, position + maxBatch);
+                    batch = new ArrayList<>((int) (end - position));
+                    for (long sequence = position; sequence < end; sequence++) {
+                        batch.add(ring[(int) (sequence & mask)]);
+                    }
+                } catch (InterruptedException e) {
+                    return;
+                } finally {
+                    lock.unlock();
+                }
+
+                try {
+                    consumer.onEvents(batch);
+                } catch (Throwable e) {
+                    failures.increment();
+                    logger.error(consumer.getConsumerName() + " failed on " + batch.size() + " events", e);
+                }
+                processed.add(batch.size());
+                batches.increment();
+                largestBatch = Math.max(largestBatch, batch.size());
+
+                lock.lock();
+                try {
+                    long consumedBefore = slowestPosition();
+                    position = end;
+                    long consumed = slowestPosition();
+                    for (long sequence = consumedBefore; sequence < consumed; sequence++) {
+                        ring[(int) (sequence & mask)] = null;
+                    }
+                    drainOverflow();
+                    notFull.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.event;
+
+import org.springframework.util.ClassUtils;
+
+import java.util.List;
+
+/**
+ * Receives domain events in publish order on its own thread, in batches of at most
+ * rs.event-bus.max-batch. A batch that throws is logged and skipped.
+ */
+public interface DomainEventConsumer {
+
+    void onEvents(List<DomainEvent> events);
+
+    default String getConsumerName() {
+        return ClassUtils.getUserClass(this).getSimpleName();
+    }
+}
@@ -0,0 +1,9 @@
+package com.thoughtworks.rslist.event;
+
+/**
+ * An event the bus never drops for backpressure: consumers keep state built from it that nothing
+ * else repairs, so on a full ring the publisher waits for room however long it takes. Only a bus
+ * that is shutting down still drops it. Consumers must not publish lossless events themselves.
+ */
+public interface LosslessDomainEvent extends DomainEvent {
+}
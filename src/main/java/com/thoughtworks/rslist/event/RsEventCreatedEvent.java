@@ -0,0 +1,13 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RsEventCreatedEvent implements DomainEvent {
+    private Integer rsEventId;
+    private Integer userId;
+}
@@ -0,0 +1,12 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+public class RsEventUpdatedEvent implements DomainEvent {
+    private Integer rsEventId;
+}
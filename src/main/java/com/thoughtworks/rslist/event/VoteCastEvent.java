@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.event;
+
+import lombok.AllArgsConstructor;
+import lombok.Builder;
+import lombok.Data;
+import lombok.NoArgsConstructor;
+
+import java.time.LocalDateTime;
+
+/**
+ * Lossless, because the snapshot's local vote counts and the per-event statistics are fed only
+ * from it.
+ */
+@Data
+@NoArgsConstructor
+@AllArgsConstructor
+@Builder
+public class VoteCastEvent implements LosslessDomainEvent {
+    private Integer rsEventId;
+    private Integer userId;
+    private int voteNum;
+    private LocalDateTime voteTime;
+    private boolean quarantined;
+}
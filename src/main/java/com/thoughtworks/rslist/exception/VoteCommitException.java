@@ -0,0 +1,11 @@
+package com.thoughtworks.rslist.exception;
+
+public class VoteCommitException extends Exception {
+    public VoteCommitException(String message) {
+        super(message);
+    }
+
+    public VoteCommitException(String message, Throwable cause) {
+        super(message, cause);
+    }
+}
@@ -0,0 +1,195 @@
+package com.thoughtworks.rslist.observability;
+
+import com.thoughtworks.rslist.domain.EndpointAllocation;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+import org.springframework.web.context.request.RequestAttributes;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.method.HandlerMethod;
+import org.springframework.web.servlet.AsyncHandlerInterceptor;
+import org.springframework.web.servlet.HandlerMapping;
+
+import javax.annotation.PostConstruct;
+import javax.servlet.DispatcherType;
+import javax.servlet.http.HttpServletRequest;
+import javax.servlet.http.HttpServletResponse;
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.stream.Collectors;
+
+/**
+ * Attributes heap allocation to controller mappings using the JVM's per-thread allocated-bytes
+ * counter, read once before and once after the handler runs. Reading the counter costs about as
+ * much as a System.nanoTime() call, so tracking can stay on in production. Bytes allocated by a
+ * streamed list body on the async thread are added by {@link #record} from the streaming code.
+ * Each endpoint keeps totals and a one-minute ring of ten-second buckets for the recent rate.
+ */
+@Component
+public class AllocationTracker implements AsyncHandlerInterceptor {
+
+    private static final String START_ATTRIBUTE = AllocationTracker.class.getName() + ".start";
+    private static final String API_PACKAGE = "com.thoughtworks.rslist.api.";
+    private static final int BUCKETS = 6;
+    private static final int BUCKET_SECONDS = 10;
+
+    @Value("${rs.observability.allocation-tracking:true}")
+    boolean enabled;
+
+    private com.sun.management.ThreadMXBean threads;
+    private final ConcurrentMap<String, Endpoint> endpoints = new ConcurrentHashMap<>();
+
+    Logger logger = LoggerFactory.getLogger(AllocationTracker.class);
+
+    @PostConstruct
+    public void initialize() {
+        ThreadMXBean threadMXBean = ManagementFactory.getThreadMXBean();
+        if (threadMXBean instanceof com.sun.management.ThreadMXBean
+                && ((com.sun.management.ThreadMXBean) threadMXBean).isThreadAllocatedMemorySupported()) {
+            threads = (com.sun.management.ThreadMXBean) threadMXBean;
+            if (enabled) {
+                threads.setThreadAllocatedMemoryEnabled(true);
+            }
+        } else if (enabled) {
+            logger.warn("thread allocation counters are not supported by this JVM, allocation tracking is off");
+            enabled = false;
+        }
+    }
+
+    public boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Bytes allocated by the current thread so far, or -1 when tracking is off.
+     */
+    public long currentThreadAllocatedBytes() {
+        return enabled ? threads.getThreadAllocatedBytes(Thread.currentThread().getId()) : -1;
+    }
+
+    /**
+     * The mapping of the request being handled on this thread, e.g. "GET /rs/{id}", or null.
+     */
+    public String currentEndpoint() {
+        RequestAttributes attributes = RequestContextHolder.getRequestAttributes();
+        if (!(attributes instanceof ServletRequestAttributes)) {
+            return null;
+        }
+        return endpointOf(((ServletRequestAttributes) attributes).getRequest());
+    }
+
+    public void record(String endpoint, long allocatedBytes, int requests) {
+        if (endpoint == null || allocatedBytes < 0) {
+            return;
+        }
+        endpoints.computeIfAbsent(endpoint, key -> new Endpoint())
+                .add(allocatedBytes, requests, System.currentTimeMillis() / 1000 / BUCKET_SECONDS);
+    }
+
+    public List<EndpointAllocation> getAllocations() {
+        long slot = System.currentTimeMillis() / 1000 / BUCKET_SECONDS;
+        return endpoints.entrySet().stream()
+                .map(entry -> {
+                    Endpoint endpoint = entry.getValue();
+                    long requests = endpoint.requests.sum();
+                    long bytes = endpoint.bytes.sum();
+                    return EndpointAllocation.builder()
+                            .endpoint(entry.getKey())
+                            .requests(requests)
+                            .allocatedBytes(bytes)
+                            .bytesPerRequest(requests == 0 ? 0 : bytes / requests)
+                            .recentBytesPerSecond(endpoint.windowBytes(slot) / (BUCKETS * BUCKET_SECONDS))
+                            .build();
+                })
+                .sorted(Comparator.comparingLong(EndpointAllocation::getRecentBytesPerSecond).reversed()
+                        .thenComparing(EndpointAllocation::getEndpoint))
+                .collect(Collectors.toList());
+    }
+
+    @Override
+    public boolean preHandle(HttpServletRequest request, HttpServletResponse response, Object handler) {
+        if (enabled && request.getDispatcherType() == DispatcherType.REQUEST && isTracked(handler)) {
+            request.setAttribute(START_ATTRIBUTE, currentThreadAllocatedBytes());
+        }
+        return true;
+    }
+
+    @Override
+    public void afterCompletion(HttpServletRequest request, HttpServletResponse response, Object handler,
+                                Exception ex) {
+        finish(request);
+    }
+
+    /**
+     * The handler of an async request has returned; the rest happens on another thread.
+     */
+    @Override
+    public void afterConcurrentHandlingStarted(HttpServletRequest request, HttpServletResponse response,
+                                               Object handler) {
+        finish(request);
+    }
+
+    private void finish(HttpServletRequest request) {
+        Object start = request.getAttribute(START_ATTRIBUTE);
+        if (start == null) {
+            return;
+        }
+        request.removeAttribute(START_ATTRIBUTE);
+        record(endpointOf(request), currentThreadAllocatedBytes() - (Long) start, 1);
+    }
+
+    private static String endpointOf(HttpServletRequest request) {
+        Object pattern = request.getAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE);
+        return pattern == null ? null : request.getMethod() + " " + pattern;
+    }
+
+    private static boolean isTracked(Object handler) {
+        return handler instanceof HandlerMethod
+                && ((HandlerMethod) handler).getBeanType().getName().startsWith(API_PACKAGE);
+    }
+
+    private static class Endpoint {
+        private final LongAdder requests = new LongAdder();
+        private final LongAdder bytes = new LongAdder();
+        private final long[] slots = new long[BUCKETS];
+        private final AtomicLongArray bucketBytes = new AtomicLongArray(BUCKETS);
+
+        Endpoint() {
+            Arrays.fill(slots, Long.MIN_VALUE);
+        }
+
+        void add(long allocated, int requestCount, long slot) {
+            requests.add(requestCount);
+            bytes.add(allocated);
+            int index = (int) (slot % BUCKETS);
+            if (slots[index] != slot) {
+                synchronized (this) {
+                    if (slots[index] != slot) {
+                        bucketBytes.set(index, 0);
+                        slots[index] = slot;
+                    }
+                }
+            }
+            bucketBytes.addAndGet(index, allocated);
+        }
+
+        synchronized long windowBytes(long slot) {
+            long sum = 0;
+            for (int i = 0; i < BUCKETS; i++) {
+                if (slots[i] > slot - BUCKETS && slots[i] <= slot) {
+                    sum += bucketBytes.get(i);
+                }
+            }
+            return sum;
+        }
+    }
+}
@@ -0,0 +1,127 @@
+package com.thoughtworks.rslist.observability;
+
+import com.sun.management.GarbageCollectionNotificationInfo;
+import com.thoughtworks.rslist.domain.GcPauseStats;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import javax.management.ListenerNotFoundException;
+import javax.management.Notification;
+import javax.management.NotificationEmitter;
+import javax.management.NotificationListener;
+import javax.management.openmbean.CompositeData;
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.stream.Collectors;
+
+/**
+ * Histograms of garbage collection durations per collector and action, fed by the collectors'
+ * end-of-collection notifications, so there is no polling and nothing runs between collections.
+ * For concurrent collectors the duration covers the whole cycle, not only the stop-the-world part;
+ * the action ("end of minor GC", "end of major GC", ...) tells them apart.
+ */
+@Component
+public class GcPauseMonitor {
+
+    static final long[] BOUNDS_MILLIS = {1, 2, 5, 10, 20, 50, 100, 200, 500, 1000, 2000, 5000};
+
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final NotificationListener listener = this::handleNotification;
+    private final List<NotificationEmitter> emitters = new ArrayList<>();
+
+    @PostConstruct
+    public void start() {
+        for (GarbageCollectorMXBean collector : ManagementFactory.getGarbageCollectorMXBeans()) {
+            if (collector instanceof NotificationEmitter) {
+                NotificationEmitter emitter = (NotificationEmitter) collector;
+                emitter.addNotificationListener(listener, null, null);
+                emitters.add(emitter);
+            }
+        }
+    }
+
+    @PreDestroy
+    public void stop() {
+        for (NotificationEmitter emitter : emitters) {
+            try {
+                emitter.removeNotificationListener(listener);
+            } catch (ListenerNotFoundException e) {
+                // already gone
+            }
+        }
+        emitters.clear();
+    }
+
+    public void record(String collector, String action, long durationMillis) {
+        histograms.computeIfAbsent(collector + "\n" + action, key -> new Histogram(collector, action))
+                .record(durationMillis);
+    }
+
+    public List<GcPauseStats> getStats() {
+        return histograms.values().stream()
+                .map(Histogram::toStats)
+                .sorted(Comparator.comparing(GcPauseStats::getCollector).thenComparing(GcPauseStats::getAction))
+                .collect(Collectors.toList());
+    }
+
+    private void handleNotification(Notification notification, Object handback) {
+        if (!GarbageCollectionNotificationInfo.GARBAGE_COLLECTION_NOTIFICATION.equals(notification.getType())) {
+            return;
+        }
+        GarbageCollectionNotificationInfo info =
+                GarbageCollectionNotificationInfo.from((CompositeData) notification.getUserData());
+        record(info.getGcName(), info.getGcAction(), info.getGcInfo().getDuration());
+    }
+
+    private static class Histogram {
+        private final String collector;
+        private final String action;
+        private final AtomicLongArray counts = new AtomicLongArray(BOUNDS_MILLIS.length + 1);
+        private final AtomicLong totalMillis = new AtomicLong();
+        private final AtomicLong maxMillis = new AtomicLong();
+
+        Histogram(String collector, String action) {
+            this.collector = collector;
+            this.action = action;
+        }
+
+        void record(long durationMillis) {
+            int bucket = 0;
+            while (bucket < BOUNDS_MILLIS.length && durationMillis > BOUNDS_MILLIS[bucket]) {
+                bucket++;
+            }
+            counts.incrementAndGet(bucket);
+            totalMillis.addAndGet(durationMillis);
+            maxMillis.accumulateAndGet(durationMillis, Math::max);
+        }
+
+        GcPauseStats toStats() {
+            Map<String, Long> histogram = new LinkedHashMap<>();
+            long count = 0;
+            for (int i = 0; i < counts.length(); i++) {
+                long bucketCount = counts.get(i);
+                count += bucketCount;
+                histogram.put(i < BOUNDS_MILLIS.length ? "<=" + BOUNDS_MILLIS[i] + "ms"
+                        : ">" + BOUNDS_MILLIS[BOUNDS_MILLIS.length - 1] + "ms", bucketCount);
+            }
+            return GcPauseStats.builder()
+                    .collector(collector)
+                    .action(action)
+                    .count(count)
+                    .totalMillis(totalMillis.get())
+                    .maxMillis(maxMillis.get())
+                    .histogram(histogram)
+                    .build();
+        }
+    }
+}
@@ -0,0 +1,94 @@
+package com.thoughtworks.rslist.observability;
+
+import com.thoughtworks.rslist.domain.HeapClassUsage;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.management.JMException;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.stream.Collectors;
+
+/**
+ * Live objects of the application's own classes, taken with the JVM's GC.class_histogram
+ * diagnostic command. Taking one forces a full collection, so a new histogram is taken at most
+ * once per rs.observability.histogram.min-interval-ms and callers get the previous one in between.
+ * Hibernate proxy classes are counted under the entity they stand for.
+ */
+@Component
+public class HeapHistogram {
+
+    private static final Pattern LINE = Pattern.compile("^\\s*\\d+:\\s+(\\d+)\\s+(\\d+)\\s+(\\S+)");
+    private static final String PROXY_SUFFIX = "$HibernateProxy$";
+
+    @Value("${rs.observability.histogram.package:com.thoughtworks.rslist}")
+    String packagePrefix;
+    @Value("${rs.observability.histogram.max-classes:50}")
+    int maxClasses;
+    @Value("${rs.observability.histogram.min-interval-ms:60000}")
+    long minIntervalMillis;
+
+    private volatile LocalDateTime takenAt;
+    private volatile List<HeapClassUsage> classes = Collections.emptyList();
+    private long takenAtMillis;
+
+    public synchronized List<HeapClassUsage> take() {
+        long now = System.currentTimeMillis();
+        if (takenAt != null && now - takenAtMillis < minIntervalMillis) {
+            return classes;
+        }
+        String output;
+        try {
+            output = (String) ManagementFactory.getPlatformMBeanServer().invoke(
+                    new ObjectName("com.sun.management:type=DiagnosticCommand"), "gcClassHistogram",
+                    new Object[]{new String[0]}, new String[]{String[].class.getName()});
+        } catch (JMException e) {
+            throw new IllegalStateException("class histogram is not available on this JVM", e);
+        }
+        classes = parse(output, packagePrefix + ".", maxClasses);
+        takenAt = LocalDateTime.now();
+        takenAtMillis = now;
+        return classes;
+    }
+
+    public LocalDateTime getTakenAt() {
+        return takenAt;
+    }
+
+    public List<HeapClassUsage> getClasses() {
+        return classes;
+    }
+
+    static List<HeapClassUsage> parse(String output, String prefix, int maxClasses) {
+        Map<String, long[]> usage = new LinkedHashMap<>();
+        for (String line : output.split("\n")) {
+            Matcher matcher = LINE.matcher(line);
+            if (!matcher.find() || !matcher.group(3).startsWith(prefix)) {
+                continue;
+            }
+            String className = matcher.group(3);
+            int proxy = className.indexOf(PROXY_SUFFIX);
+            if (proxy > 0) {
+                className = className.substring(0, proxy);
+            }
+            long[] counts = usage.computeIfAbsent(className, name -> new long[2]);
+            counts[0] += Long.parseLong(matcher.group(1));
+            counts[1] += Long.parseLong(matcher.group(2));
+        }
+        List<HeapClassUsage> classes = new ArrayList<>();
+        usage.forEach((className, counts) -> classes.add(new HeapClassUsage(className, counts[0], counts[1])));
+        return classes.stream()
+                .sorted(Comparator.comparingLong(HeapClassUsage::getBytes).reversed())
+                .limit(maxClasses)
+                .collect(Collectors.toList());
+    }
+}
@@ -0,0 +1,90 @@
+package com.thoughtworks.rslist.observability;
+
+/**
+ * Custom Flight Recorder events for vote commits and list serialization. They cost nothing unless a
+ * recording with them enabled is running, e.g. started with jcmd JFR.start or streamed with
+ * jfr/RecordingStream from outside. On JVMs without the jdk.jfr module the spans are no-ops, but
+ * compiling the event classes needs a JDK that has it: 8u262 or later, or 11+.
+ */
+public final class JfrEvents {
+
+    static final boolean AVAILABLE = isAvailable();
+
+    private JfrEvents() {
+    }
+
+    public static VoteCommit voteCommit() {
+        return AVAILABLE ? new JfrVoteCommit() : VoteCommit.NOOP;
+    }
+
+    public static ListSerialization listSerialization() {
+        return AVAILABLE ? new JfrListSerialization() : ListSerialization.NOOP;
+    }
+
+    private static boolean isAvailable() {
+        try {
+            Class.forName("jdk.jfr.Event");
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    public abstract static class VoteCommit {
+        static final VoteCommit NOOP = new VoteCommit() {
+            @Override
+            public void end(int votes, int accepted, boolean grouped) {
+            }
+        };
+
+        public abstract void end(int votes, int accepted, boolean grouped);
+    }
+
+    public abstract static class ListSerialization {
+        static final ListSerialization NOOP = new ListSerialization() {
+            @Override
+            public void end(String endpoint, long items, long allocatedBytes) {
+            }
+        };
+
+        public abstract void end(String endpoint, long items, long allocatedBytes);
+    }
+
+    private static class JfrVoteCommit extends VoteCommit {
+        private final VoteCommitEvent event = new VoteCommitEvent();
+
+        JfrVoteCommit() {
+            event.begin();
+        }
+
+        @Override
+        public void end(int votes, int accepted, boolean grouped) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.votes = votes;
+                event.accepted = accepted;
+                event.grouped = grouped;
+                event.commit();
+            }
+        }
+    }
+
+    private static class JfrListSerialization extends ListSerialization {
+        private final ListSerializationEvent event = new ListSerializationEvent();
+
+        JfrListSerialization() {
+            event.begin();
+        }
+
+        @Override
+        public void end(String endpoint, long items, long allocatedBytes) {
+            event.end();
+            if (event.shouldCommit()) {
+                event.endpoint = endpoint;
+                event.items = items;
+                event.allocatedBytes = allocatedBytes;
+                event.commit();
+            }
+        }
+    }
+}
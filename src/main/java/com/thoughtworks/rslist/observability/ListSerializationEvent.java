@@ -0,0 +1,25 @@
+package com.thoughtworks.rslist.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.DataAmount;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.thoughtworks.rslist.ListSerialization")
+@Label("List Serialization")
+@Category("RS List")
+@Description("A list response streamed out as a JSON array")
+class ListSerializationEvent extends Event {
+
+    @Label("Endpoint")
+    String endpoint;
+
+    @Label("Items")
+    long items;
+
+    @Label("Allocated")
+    @DataAmount
+    long allocatedBytes;
+}
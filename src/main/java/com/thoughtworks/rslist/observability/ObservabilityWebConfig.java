@@ -0,0 +1,18 @@
+package com.thoughtworks.rslist.observability;
+
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Configuration;
+import org.springframework.web.servlet.config.annotation.InterceptorRegistry;
+import org.springframework.web.servlet.config.annotation.WebMvcConfigurer;
+
+@Configuration
+public class ObservabilityWebConfig implements WebMvcConfigurer {
+
+    @Autowired
+    AllocationTracker allocationTracker;
+
+    @Override
+    public void addInterceptors(InterceptorRegistry registry) {
+        registry.addInterceptor(allocationTracker);
+    }
+}
@@ -0,0 +1,24 @@
+package com.thoughtworks.rslist.observability;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+@Name("com.thoughtworks.rslist.VoteCommit")
+@Label("Vote Commit")
+@Category("RS List")
+@Description("A transaction writing one or more votes")
+class VoteCommitEvent extends Event {
+
+    @Label("Votes")
+    int votes;
+
+    @Label("Accepted")
+    int accepted;
+
+    @Label("Group Commit")
+    @Description("Written by the group commit thread rather than the voting request")
+    boolean grouped;
+}
@@ -0,0 +1,48 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.thoughtworks.rslist.domain.OutboxVote;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.util.List;
+
+/**
+ * Appends each vote as one JSON line and fsyncs the file before the batch counts as delivered.
+ */
+@Component
+@ConditionalOnProperty(name = "rs.outbox.sink", havingValue = "file")
+public class FileOutboxSink implements OutboxSink {
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    @Value("${rs.outbox.file.path:outbox/votes.jsonl}")
+    String path;
+
+    @Override
+    public void deliver(List<OutboxVote> votes) throws IOException {
+        File file = new File(path);
+        if (file.getParentFile() != null) {
+            file.getParentFile().mkdirs();
+        }
+        ObjectWriter writer = objectMapper.writerFor(OutboxVote.class);
+        try (FileOutputStream fileStream = new FileOutputStream(file, true);
+             OutputStream out = new BufferedOutputStream(fileStream, 64 * 1024)) {
+            for (OutboxVote vote : votes) {
+                out.write(writer.writeValueAsBytes(vote));
+                out.write('\n');
+            }
+            out.flush();
+            fileStream.getChannel().force(false);
+        }
+    }
+}
@@ -0,0 +1,44 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.domain.OutboxVote;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.stereotype.Component;
+import org.springframework.web.client.RestTemplate;
+
+import javax.annotation.PostConstruct;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * POSTs each batch as a JSON array; any non-2xx response or I/O error fails the batch.
+ */
+@Component
+@ConditionalOnProperty(name = "rs.outbox.sink", havingValue = "http")
+public class HttpOutboxSink implements OutboxSink {
+
+    @Autowired
+    RestTemplateBuilder restTemplateBuilder;
+
+    @Value("${rs.outbox.http.url}")
+    String url;
+    @Value("${rs.outbox.http.timeout-ms:5000}")
+    long timeoutMillis;
+
+    RestTemplate restTemplate;
+
+    @PostConstruct
+    public void init() {
+        restTemplate = restTemplateBuilder
+                .setConnectTimeout(Duration.ofMillis(timeoutMillis))
+                .setReadTimeout(Duration.ofMillis(timeoutMillis))
+                .build();
+    }
+
+    @Override
+    public void deliver(List<OutboxVote> votes) {
+        restTemplate.postForEntity(url, votes, Void.class);
+    }
+}
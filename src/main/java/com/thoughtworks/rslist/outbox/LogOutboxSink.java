@@ -0,0 +1,21 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.domain.OutboxVote;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.boot.autoconfigure.condition.ConditionalOnProperty;
+import org.springframework.stereotype.Component;
+
+import java.util.List;
+
+@Component
+@ConditionalOnProperty(name = "rs.outbox.sink", havingValue = "log", matchIfMissing = true)
+public class LogOutboxSink implements OutboxSink {
+
+    Logger logger = LoggerFactory.getLogger(LogOutboxSink.class);
+
+    @Override
+    public void deliver(List<OutboxVote> votes) {
+        logger.debug("relayed votes " + votes.get(0).getSequence() + ".." + votes.get(votes.size() - 1).getSequence());
+    }
+}
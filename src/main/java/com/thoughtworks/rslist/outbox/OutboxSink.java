@@ -0,0 +1,15 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.domain.OutboxVote;
+
+import java.util.List;
+
+/**
+ * Destination of relayed votes. A batch counts as delivered only when deliver returns; on an
+ * exception the relay retries the same batch, so a sink may see a vote more than once and
+ * downstream should deduplicate on the sequence.
+ */
+public interface OutboxSink {
+
+    void deliver(List<OutboxVote> votes) throws Exception;
+}
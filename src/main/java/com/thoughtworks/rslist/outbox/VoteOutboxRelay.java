@@ -0,0 +1,201 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.domain.OutboxVote;
+import com.thoughtworks.rslist.entity.OutboxCursorEntity;
+import com.thoughtworks.rslist.repository.OutboxCursorRepository;
+import com.thoughtworks.rslist.service.ChangeFeed;
+import com.thoughtworks.rslist.service.GapAwareCursor;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.RowMapper;
+import org.springframework.jdbc.core.namedparam.MapSqlParameterSource;
+import org.springframework.jdbc.core.namedparam.NamedParameterJdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * Drains vote_outbox to the configured {@link OutboxSink} in id order. Rows are read by id
+ * cursor, never by offset; ids that were skipped because their transaction had not committed yet,
+ * or because they sit in another node's unused block of the pooled id sequence, are re-read as gaps. The contiguous position is stored in outbox_cursor together with the
+ * removal of the delivered rows, after the sink has accepted the batch, so a crash only causes
+ * redelivery. Only delivered rows are removed: a row that commits after its gap timed out lands
+ * behind the position and is picked up by the next read, out of order. Rows behind the position,
+ * re-read gaps and new rows are merged and cut to rs.outbox.relay.batch-size lowest ids first;
+ * whatever is cut stays in the table or the gap set for the next read. One instance at a time
+ * holds the relay lease, renewed with every batch it commits.
+ */
+@Service
+public class VoteOutboxRelay {
+
+    private static final String CURSOR = "vote";
+    private static final String SELECT_OUTBOX = "SELECT id, vote_id, rs_event_id, user_id, vote_num, " +
+            "vote_time, quarantined, created_at FROM vote_outbox ";
+    private static final int MAX_GAPS_PER_READ = 1000;
+
+    @Autowired
+    NamedParameterJdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    OutboxCursorRepository cursorRepository;
+    @Autowired
+    OutboxSink sink;
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Value("${rs.outbox.relay.enabled:true}")
+    boolean enabled;
+    @Value("${rs.outbox.relay.batch-size:5000}")
+    int batchSize;
+    @Value("${rs.outbox.relay.linger-ms:200}")
+    long lingerMillis;
+    @Value("${rs.outbox.relay.gap-timeout-ms:10000}")
+    long gapTimeoutMillis;
+    @Value("${rs.outbox.relay.lease-ms:15000}")
+    long leaseMillis;
+
+    private GapAwareCursor cursor;
+
+    Logger logger = LoggerFactory.getLogger(VoteOutboxRelay.class);
+
+    @Scheduled(fixedDelayString = "${rs.outbox.relay.poll-interval-ms:50}")
+    public void scheduledRelay() {
+        if (!enabled) {
+            return;
+        }
+        try {
+            relay();
+        } catch (Exception e) {
+            logger.warn("vote outbox relay failed, retrying: " + e.getMessage());
+        }
+    }
+
+    /**
+     * Delivers every full batch available, and the remaining partial batch once its oldest row has
+     * waited rs.outbox.relay.linger-ms. Returns the number of votes delivered.
+     */
+    public synchronized int relay() throws Exception {
+        if (!acquireLease()) {
+            cursor = null;
+            return 0;
+        }
+        if (cursor == null) {
+            cursor = new GapAwareCursor(cursorRepository.findById(CURSOR).get().getPosition(), gapTimeoutMillis);
+        }
+        int delivered = 0;
+        while (true) {
+            List<OutboxVote> batch = read();
+            if (batch.isEmpty() || batch.size() < batchSize && isLingering(batch)) {
+                return delivered;
+            }
+            sink.deliver(batch);
+            long now = System.currentTimeMillis();
+            for (OutboxVote vote : batch) {
+                cursor.offer(vote.getSequence(), now);
+            }
+            cursor.advance(now);
+            if (!commit(cursor.getPosition(), batch)) {
+                cursor = null;
+                return delivered;
+            }
+            delivered += batch.size();
+            if (batch.size() < batchSize) {
+                return delivered;
+            }
+        }
+    }
+
+    public long getPosition() {
+        return cursorRepository.findById(CURSOR).map(OutboxCursorEntity::getPosition).orElse(0L);
+    }
+
+    private List<OutboxVote> read() {
+        List<OutboxVote> batch = new ArrayList<>(jdbcTemplate.query(
+                SELECT_OUTBOX + "WHERE id > :after ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource("after", cursor.getHighest()).addValue("limit", batchSize),
+                ROW_MAPPER));
+        batch.addAll(jdbcTemplate.query(SELECT_OUTBOX + "WHERE id <= :position ORDER BY id LIMIT :limit",
+                new MapSqlParameterSource("position", cursor.getPosition()).addValue("limit", batchSize),
+                ROW_MAPPER));
+        List<Long> gaps = cursor.getGaps().stream().sorted().limit(MAX_GAPS_PER_READ).collect(Collectors.toList());
+        if (!gaps.isEmpty()) {
+            batch.addAll(jdbcTemplate.query(SELECT_OUTBOX + "WHERE id IN (:ids)",
+                    new MapSqlParameterSource("ids", gaps), ROW_MAPPER));
+        }
+        batch.sort(Comparator.comparingLong(OutboxVote::getSequence));
+        return batch.size() > batchSize ? new ArrayList<>(batch.subList(0, batchSize)) : batch;
+    }
+
+    private boolean isLingering(List<OutboxVote> batch) {
+        LocalDateTime oldest = batch.stream().map(OutboxVote::getCreatedAt).min(Comparator.naturalOrder()).get();
+        return oldest.isAfter(LocalDateTime.now().minusNanos(lingerMillis * 1_000_000));
+    }
+
+    private boolean commit(long position, List<OutboxVote> batch) {
+        LocalDateTime now = LocalDateTime.now();
+        return new TransactionTemplate(transactionManager).execute(status -> {
+            int updated = jdbcTemplate.update("UPDATE outbox_cursor SET position = :position, updated_at = :now, " +
+                            "lease_until = :until WHERE name = :name AND owner = :owner",
+                    new MapSqlParameterSource("position", position)
+                            .addValue("now", Timestamp.valueOf(now))
+                            .addValue("until", Timestamp.valueOf(now.plusNanos(leaseMillis * 1_000_000)))
+                            .addValue("name", CURSOR)
+                            .addValue("owner", changeFeed.getNodeId()));
+            if (updated == 0) {
+                logger.warn("vote outbox relay lease lost, position " + position + " left to the new owner");
+                return false;
+            }
+            jdbcTemplate.update("DELETE FROM vote_outbox WHERE id IN (:ids)", new MapSqlParameterSource("ids",
+                    batch.stream().map(OutboxVote::getSequence).collect(Collectors.toList())));
+            return true;
+        });
+    }
+
+    private boolean acquireLease() {
+        LocalDateTime now = LocalDateTime.now();
+        MapSqlParameterSource params = new MapSqlParameterSource("name", CURSOR)
+                .addValue("owner", changeFeed.getNodeId())
+                .addValue("now", Timestamp.valueOf(now))
+                .addValue("until", Timestamp.valueOf(now.plusNanos(leaseMillis * 1_000_000)));
+        int updated = jdbcTemplate.update("UPDATE outbox_cursor SET owner = :owner, lease_until = :until " +
+                "WHERE name = :name AND (owner = :owner OR owner IS NULL OR lease_until < :now)", params);
+        if (updated == 0 && !cursorRepository.existsById(CURSOR)) {
+            try {
+                cursorRepository.save(OutboxCursorEntity.builder()
+                        .name(CURSOR)
+                        .position(0)
+                        .owner(changeFeed.getNodeId())
+                        .leaseUntil(now.plusNanos(leaseMillis * 1_000_000))
+                        .updatedAt(now)
+                        .build());
+                return true;
+            } catch (DataIntegrityViolationException e) {
+                return false;
+            }
+        }
+        return updated == 1;
+    }
+
+    private static final RowMapper<OutboxVote> ROW_MAPPER = (rs, rowNum) -> OutboxVote.builder()
+            .sequence(rs.getLong(1))
+            .voteId(rs.getInt(2))
+            .rsEventId(rs.getInt(3))
+            .userId(rs.getInt(4))
+            .voteNum(rs.getInt(5))
+            .voteTime(rs.getTimestamp(6).toLocalDateTime())
+            .quarantined(rs.getBoolean(7))
+            .createdAt(rs.getTimestamp(8).toLocalDateTime())
+            .build();
+}
@@ -0,0 +1,17 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.entity.BudgetRefillRunEntity;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface BudgetRefillRunRepository extends CrudRepository<BudgetRefillRunEntity, Integer> {
+
+    Optional<BudgetRefillRunEntity> findByTierAndPeriodStart(String tier, LocalDate periodStart);
+
+    List<BudgetRefillRunEntity> findTop20ByOrderByIdDesc();
+}
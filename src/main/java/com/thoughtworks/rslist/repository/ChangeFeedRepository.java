@@ -0,0 +1,29 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.entity.ChangeFeedEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import java.time.LocalDateTime;
+import java.util.Collection;
+import java.util.List;
+
+@Repository
+public interface ChangeFeedRepository extends CrudRepository<ChangeFeedEntity, Long> {
+
+    List<ChangeFeedEntity> findTop500ByIdGreaterThanOrderById(Long id);
+
+    List<ChangeFeedEntity> findAllByIdIn(Collection<Long> ids);
+
+    @Query("select coalesce(max(c.id), 0) from ChangeFeedEntity c")
+    long findMaxId();
+
+    @Transactional
+    @Modifying
+    @Query("delete from ChangeFeedEntity c where c.createdAt < :before")
+    int deleteAllByCreatedAtBefore(@Param("before") LocalDateTime before);
+}
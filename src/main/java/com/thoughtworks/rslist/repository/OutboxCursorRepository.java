@@ -0,0 +1,9 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.entity.OutboxCursorEntity;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.stereotype.Repository;
+
+@Repository
+public interface OutboxCursorRepository extends CrudRepository<OutboxCursorEntity, String> {
+}
@@ -2,14 +2,38 @@ package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.entity.RsEventEntitiy;
 import com.thoughtworks.rslist.entity.UserEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 
 @Repository
 public interface RsEventRepository extends CrudRepository<RsEventEntitiy, Integer> {
 
     List<RsEventEntitiy> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select e from RsEventEntitiy e")
+    Stream<RsEventEntitiy> streamAll();
+
+    @Query("select e.id from RsEventEntitiy e where e.voteShardCount > 0")
+    List<Integer> findShardedIds();
+
+    @Modifying
+    @Query("update RsEventEntitiy e set e.voteNum = e.voteNum + :num where e.id = :id")
+    int incrementVoteNum(@Param("id") Integer id, @Param("num") Integer num);
+
+    @Modifying
+    @Query("update RsEventEntitiy e set e.voteShardCount = :shardCount " +
+            "where e.id = :id and e.voteShardCount = 0")
+    int markSharded(@Param("id") Integer id, @Param("shardCount") Integer shardCount);
 }
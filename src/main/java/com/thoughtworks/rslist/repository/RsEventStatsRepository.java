@@ -0,0 +1,31 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.entity.RsEventStatsEntity;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+import org.springframework.transaction.annotation.Transactional;
+
+import javax.persistence.LockModeType;
+import java.time.LocalDate;
+import java.util.List;
+import java.util.Optional;
+
+@Repository
+public interface RsEventStatsRepository extends CrudRepository<RsEventStatsEntity, Integer> {
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from RsEventStatsEntity s where s.rsEventId = :rsEventId and s.day = :day")
+    Optional<RsEventStatsEntity> findByRsEventIdAndDayForUpdate(@Param("rsEventId") Integer rsEventId,
+                                                                @Param("day") LocalDate day);
+
+    List<RsEventStatsEntity> findAllByRsEventIdAndDayBetween(Integer rsEventId, LocalDate from, LocalDate to);
+
+    @Transactional
+    @Modifying
+    @Query("delete from RsEventStatsEntity s where s.day < :day")
+    int deleteAllByDayBefore(@Param("day") LocalDate day);
+}
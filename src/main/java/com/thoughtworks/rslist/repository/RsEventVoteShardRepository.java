@@ -0,0 +1,41 @@
+package com.thoughtworks.rslist.repository;
+
+import com.thoughtworks.rslist.entity.RsEventVoteShardEntity;
+import org.springframework.data.jpa.repository.Lock;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
+import org.springframework.stereotype.Repository;
+
+import javax.persistence.LockModeType;
+import java.util.List;
+
+@Repository
+public interface RsEventVoteShardRepository extends CrudRepository<RsEventVoteShardEntity, Integer> {
+
+    @Modifying
+    @Query("update RsEventVoteShardEntity s set s.voteNum = s.voteNum + :num " +
+            "where s.rsEventId = :rsEventId and s.shardIndex = :shardIndex")
+    int increment(@Param("rsEventId") Integer rsEventId, @Param("shardIndex") Integer shardIndex,
+                  @Param("num") Integer num);
+
+    @Query("select coalesce(sum(s.voteNum), 0) from RsEventVoteShardEntity s where s.rsEventId = :rsEventId")
+    long sumVoteNum(@Param("rsEventId") Integer rsEventId);
+
+    @Query("select s.rsEventId, sum(s.voteNum) from RsEventVoteShardEntity s group by s.rsEventId")
+    List<Object[]> sumVoteNumGroupByRsEventId();
+
+    @Lock(LockModeType.PESSIMISTIC_WRITE)
+    @Query("select s from RsEventVoteShardEntity s where s.rsEventId = :rsEventId")
+    List<RsEventVoteShardEntity> findAllByRsEventIdForUpdate(@Param("rsEventId") Integer rsEventId);
+
+    @Modifying
+    @Query("update RsEventVoteShardEntity s set s.voteNum = 0 where s.rsEventId = :rsEventId")
+    int reset(@Param("rsEventId") Integer rsEventId);
+
+    @Modifying
+    @Query("delete from RsEventVoteShardEntity s " +
+            "where s.rsEventId not in (select e.id from RsEventEntitiy e)")
+    int deleteOrphans();
+}
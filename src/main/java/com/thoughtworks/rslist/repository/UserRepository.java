@@ -1,13 +1,29 @@
 package com.thoughtworks.rslist.repository;
 
 import com.thoughtworks.rslist.entity.UserEntity;
+import org.springframework.data.jpa.repository.Modifying;
+import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
+import org.springframework.data.repository.query.Param;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface UserRepository extends CrudRepository<UserEntity, Integer> {
 
     List<UserEntity> findAll();
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    @Query("select u from UserEntity u")
+    Stream<UserEntity> streamAll();
+
+    @Modifying
+    @Query("update UserEntity u set u.voteNum = u.voteNum - :voteNum where u.id = :id and u.voteNum >= :voteNum")
+    int spendVotes(@Param("id") Integer id, @Param("voteNum") int voteNum);
 }
@@ -1,12 +1,18 @@
 package com.thoughtworks.rslist.repository;
 
+import com.thoughtworks.rslist.domain.VoteView;
 import com.thoughtworks.rslist.entity.VoteEntity;
 import org.springframework.data.jpa.repository.Query;
+import org.springframework.data.jpa.repository.QueryHints;
 import org.springframework.data.repository.CrudRepository;
 import org.springframework.stereotype.Repository;
 
+import javax.persistence.QueryHint;
 import java.time.LocalDateTime;
 import java.util.List;
+import java.util.stream.Stream;
+
+import static org.hibernate.jpa.QueryHints.HINT_FETCH_SIZE;
 
 @Repository
 public interface VoteRepository extends CrudRepository<VoteEntity, Integer> {
@@ -14,4 +20,7 @@ public interface VoteRepository extends CrudRepository<VoteEntity, Integer> {
     List<VoteEntity> findAll();
 
     List<VoteEntity> findAllByVoteTimeBetween(LocalDateTime start, LocalDateTime end);
+
+    @QueryHints(@QueryHint(name = HINT_FETCH_SIZE, value = "500"))
+    Stream<VoteView> streamAllByVoteTimeBetween(LocalDateTime start, LocalDateTime end);
 }
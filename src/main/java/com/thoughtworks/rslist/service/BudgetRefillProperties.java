@@ -0,0 +1,33 @@
+package com.thoughtworks.rslist.service;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.stereotype.Component;
+
+import java.util.ArrayList;
+import java.util.List;
+
+@Data
+@Component
+@ConfigurationProperties("rs.budget")
+public class BudgetRefillProperties {
+
+    public enum Period {
+        DAILY, WEEKLY
+    }
+
+    private String defaultTier = "standard";
+    private int chunkSize = 1000;
+    private long pauseMillis = 20;
+    private int maxVotesPerSecond = 200;
+    private long maxPauseMillis = 2000;
+    private long leaseMillis = 60000;
+    private List<Policy> policies = new ArrayList<>();
+
+    @Data
+    public static class Policy {
+        private String tier;
+        private Period period = Period.DAILY;
+        private int budget = 10;
+    }
+}
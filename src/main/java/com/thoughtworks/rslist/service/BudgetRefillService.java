@@ -0,0 +1,176 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.entity.BudgetRefillRunEntity;
+import com.thoughtworks.rslist.repository.BudgetRefillRunRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.dao.DataIntegrityViolationException;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.sql.Timestamp;
+import java.time.DayOfWeek;
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.time.temporal.TemporalAdjusters;
+import java.util.Optional;
+
+/**
+ * Refills user vote budgets once per policy period. Each run walks the user table in id ranges of
+ * rs.budget.chunk-size with one short set-based UPDATE per chunk and checkpoints the last id in
+ * the same transaction, so a crashed run resumes where it stopped. Between chunks it pauses at
+ * least as long as the chunk held its locks, and longer while live vote traffic is high. Every
+ * instance fires the cron, so a run is worked only by the node holding its lease; the lease is
+ * renewed with each checkpoint, and a chunk whose checkpoint finds the lease gone is rolled back.
+ */
+@Service
+public class BudgetRefillService {
+
+    private static final String NEXT_CHUNK_END = "SELECT MAX(id) FROM " +
+            "(SELECT id FROM user WHERE id > ? ORDER BY id LIMIT ?) chunk";
+
+    @Autowired
+    BudgetRefillProperties properties;
+    @Autowired
+    BudgetRefillRunRepository runRepository;
+    @Autowired
+    VoteCounterService voteCounterService;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    ChangeFeed changeFeed;
+
+    Logger logger = LoggerFactory.getLogger(BudgetRefillService.class);
+
+    public String getDefaultTier() {
+        return properties.getDefaultTier();
+    }
+
+    public int initialBudget(String tier) {
+        return properties.getPolicies().stream()
+                .filter(policy -> policy.getTier().equals(tier))
+                .mapToInt(BudgetRefillProperties.Policy::getBudget)
+                .findFirst()
+                .orElse(10);
+    }
+
+    @Scheduled(cron = "${rs.budget.cron:0 */5 * * * *}")
+    public void refillAll() {
+        for (BudgetRefillProperties.Policy policy : properties.getPolicies()) {
+            refill(policy, LocalDate.now());
+        }
+    }
+
+    public BudgetRefillRunEntity refill(BudgetRefillProperties.Policy policy, LocalDate today) {
+        LocalDate periodStart = policy.getPeriod() == BudgetRefillProperties.Period.WEEKLY
+                ? today.with(TemporalAdjusters.previousOrSame(DayOfWeek.MONDAY))
+                : today;
+        BudgetRefillRunEntity run = findOrStart(policy, periodStart);
+        if (BudgetRefillRunEntity.DONE.equals(run.getStatus()) || !claim(run.getId())) {
+            return run;
+        }
+
+        boolean defaultTier = properties.getDefaultTier().equals(policy.getTier());
+        String update = "UPDATE user SET vote_num = ? WHERE id > ? AND id <= ? AND vote_num < ? AND "
+                + (defaultTier ? "(tier = ? OR tier IS NULL)" : "tier = ?");
+        String checkpoint = "UPDATE budget_refill_run SET last_user_id = ?, rows_updated = rows_updated + ?, " +
+                "chunks = chunks + 1, lock_millis = lock_millis + ?, " +
+                "max_chunk_millis = GREATEST(max_chunk_millis, ?), lease_until = ? WHERE id = ? AND owner = ?";
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        long start = System.currentTimeMillis();
+        int lastUserId = jdbcTemplate.queryForObject("SELECT last_user_id FROM budget_refill_run WHERE id = ?",
+                Integer.class, run.getId());
+        long throttledMillis = 0;
+
+        while (true) {
+            Integer chunkEnd = jdbcTemplate.queryForObject(NEXT_CHUNK_END, Integer.class,
+                    lastUserId, properties.getChunkSize());
+            if (chunkEnd == null) {
+                break;
+            }
+            int from = lastUserId;
+            long chunkMillis = transactionTemplate.execute(status -> {
+                long chunkStart = System.currentTimeMillis();
+                int updated = jdbcTemplate.update(update, policy.getBudget(), from, chunkEnd,
+                        policy.getBudget(), policy.getTier());
+                long elapsed = System.currentTimeMillis() - chunkStart;
+                if (jdbcTemplate.update(checkpoint, chunkEnd, updated, elapsed, elapsed, leaseUntil(),
+                        run.getId(), changeFeed.getNodeId()) == 0) {
+                    status.setRollbackOnly();
+                    return -1L;
+                }
+                return elapsed;
+            });
+            if (chunkMillis < 0) {
+                logger.warn("budget refill " + run.getTier() + "/" + run.getPeriodStart()
+                        + " lease lost at user " + from + ", left to the new owner");
+                return runRepository.findById(run.getId()).get();
+            }
+            lastUserId = chunkEnd;
+            throttledMillis += throttle(chunkMillis);
+        }
+
+        jdbcTemplate.update("UPDATE budget_refill_run SET status = ?, throttled_millis = throttled_millis + ?, " +
+                        "finished_at = ?, owner = NULL WHERE id = ? AND owner = ?", BudgetRefillRunEntity.DONE,
+                throttledMillis, Timestamp.valueOf(LocalDateTime.now()), run.getId(), changeFeed.getNodeId());
+        BudgetRefillRunEntity finished = runRepository.findById(run.getId()).get();
+        long elapsed = Math.max(1, System.currentTimeMillis() - start);
+        logger.info(String.format("budget refill %s/%s: %d users in %d chunks, %dms (%d rows/s), " +
+                        "lock time %dms (max chunk %dms), throttled %dms",
+                finished.getTier(), finished.getPeriodStart(), finished.getRowsUpdated(), finished.getChunks(),
+                elapsed, finished.getRowsUpdated() * 1000 / elapsed, finished.getLockMillis(),
+                finished.getMaxChunkMillis(), throttledMillis));
+        return finished;
+    }
+
+    private BudgetRefillRunEntity findOrStart(BudgetRefillProperties.Policy policy, LocalDate periodStart) {
+        Optional<BudgetRefillRunEntity> run = runRepository.findByTierAndPeriodStart(policy.getTier(), periodStart);
+        if (run.isPresent()) {
+            return run.get();
+        }
+        try {
+            return runRepository.save(BudgetRefillRunEntity.builder()
+                    .tier(policy.getTier())
+                    .periodStart(periodStart)
+                    .budget(policy.getBudget())
+                    .status(BudgetRefillRunEntity.RUNNING)
+                    .lastUserId(0)
+                    .startedAt(LocalDateTime.now())
+                    .build());
+        } catch (DataIntegrityViolationException e) {
+            return runRepository.findByTierAndPeriodStart(policy.getTier(), periodStart).get();
+        }
+    }
+
+    private boolean claim(Integer runId) {
+        return jdbcTemplate.update("UPDATE budget_refill_run SET owner = ?, lease_until = ? WHERE id = ? " +
+                        "AND status = ? AND (owner = ? OR owner IS NULL OR lease_until < ?)",
+                changeFeed.getNodeId(), leaseUntil(), runId, BudgetRefillRunEntity.RUNNING,
+                changeFeed.getNodeId(), Timestamp.valueOf(LocalDateTime.now())) == 1;
+    }
+
+    private Timestamp leaseUntil() {
+        return Timestamp.valueOf(LocalDateTime.now().plusNanos(properties.getLeaseMillis() * 1_000_000));
+    }
+
+    private long throttle(long chunkMillis) {
+        long pause = Math.max(properties.getPauseMillis(), chunkMillis);
+        int votesPerSecond = voteCounterService.getVotesPerSecond();
+        if (votesPerSecond > properties.getMaxVotesPerSecond()) {
+            pause = pause * votesPerSecond / properties.getMaxVotesPerSecond();
+        }
+        pause = Math.min(pause, properties.getMaxPauseMillis());
+        try {
+            Thread.sleep(pause);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        return pause;
+    }
+}
@@ -0,0 +1,121 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.EntityChange;
+import com.thoughtworks.rslist.entity.ChangeFeedEntity;
+import com.thoughtworks.rslist.repository.ChangeFeedRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.util.StringUtils;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Spreads vote deltas and entity changes between application instances through the change_feed
+ * table. Changes are written in the writer's transaction; every instance polls the table by id
+ * and delivers the changes of the other instances to its listeners, so remote changes arrive
+ * within one poll interval. Local side effects go through the domain event bus instead. When an
+ * id jump is too wide for the cursor to track, listeners are told changes may have been lost.
+ */
+@Service
+public class ChangeFeed {
+
+    @Autowired
+    ChangeFeedRepository changeFeedRepository;
+    @Autowired(required = false)
+    List<ChangeFeedListener> listeners = Collections.emptyList();
+
+    @Value("${rs.node.id:}")
+    String nodeId;
+    @Value("${rs.change-feed.gap-timeout-ms:10000}")
+    long gapTimeoutMillis;
+    @Value("${rs.change-feed.retention-minutes:10}")
+    long retentionMinutes;
+
+    private GapAwareCursor cursor;
+    private boolean changesLost;
+
+    Logger logger = LoggerFactory.getLogger(ChangeFeed.class);
+
+    @PostConstruct
+    public void init() {
+        if (StringUtils.isEmpty(nodeId)) {
+            nodeId = UUID.randomUUID().toString();
+        }
+        cursor = new GapAwareCursor(changeFeedRepository.findMaxId(), gapTimeoutMillis, () -> changesLost = true);
+        logger.info("change feed node " + nodeId + " starting after id " + cursor.getPosition());
+    }
+
+    public void publish(EntityChange.EntityType entityType, Integer entityId,
+                        EntityChange.ChangeType changeType, int voteDelta) {
+        changeFeedRepository.save(ChangeFeedEntity.builder()
+                .nodeId(nodeId)
+                .entityType(entityType)
+                .entityId(entityId)
+                .changeType(changeType)
+                .voteDelta(voteDelta)
+                .createdAt(LocalDateTime.now())
+                .build());
+    }
+
+    @Scheduled(fixedDelayString = "${rs.change-feed.poll-interval-ms:200}")
+    public synchronized void poll() {
+        List<ChangeFeedEntity> rows = new ArrayList<>(
+                changeFeedRepository.findTop500ByIdGreaterThanOrderById(cursor.getHighest()));
+        if (!cursor.getGaps().isEmpty()) {
+            rows.addAll(changeFeedRepository.findAllByIdIn(cursor.getGaps()));
+            rows.sort(Comparator.comparing(ChangeFeedEntity::getId));
+        }
+        long now = System.currentTimeMillis();
+        for (ChangeFeedEntity row : rows) {
+            if (cursor.offer(row.getId(), now) && !nodeId.equals(row.getNodeId())) {
+                deliver(EntityChange.builder()
+                        .nodeId(row.getNodeId())
+                        .entityType(row.getEntityType())
+                        .entityId(row.getEntityId())
+                        .changeType(row.getChangeType())
+                        .voteDelta(row.getVoteDelta())
+                        .build());
+            }
+        }
+        cursor.advance(now);
+        if (changesLost) {
+            changesLost = false;
+            for (ChangeFeedListener listener : listeners) {
+                try {
+                    listener.onChangesLost();
+                } catch (RuntimeException e) {
+                    logger.error("change feed listener failed to recover lost changes", e);
+                }
+            }
+        }
+    }
+
+    @Scheduled(fixedDelayString = "${rs.change-feed.prune-interval-ms:60000}")
+    public void prune() {
+        changeFeedRepository.deleteAllByCreatedAtBefore(LocalDateTime.now().minusMinutes(retentionMinutes));
+    }
+
+    public String getNodeId() {
+        return nodeId;
+    }
+
+    private void deliver(EntityChange change) {
+        for (ChangeFeedListener listener : listeners) {
+            try {
+                listener.onChange(change);
+            } catch (RuntimeException e) {
+                logger.error("change feed listener failed on " + change, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,14 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.EntityChange;
+
+public interface ChangeFeedListener {
+
+    void onChange(EntityChange change);
+
+    /**
+     * Changes may have been missed, so state built from them should be reloaded from the tables.
+     */
+    default void onChangesLost() {
+    }
+}
@@ -0,0 +1,101 @@
+package com.thoughtworks.rslist.service;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.HashSet;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.TreeSet;
+
+/**
+ * Cursor over an auto-increment id sequence whose rows may become visible out of order, e.g.
+ * when a transaction holding a lower id commits after one holding a higher id. Missing ids are
+ * remembered as gaps and re-checked until they show up or time out (rolled back transactions
+ * leave permanent gaps), so late commits are not skipped. A jump of more than 10000 ids is too
+ * wide to track id by id; it is logged and reported to onUntrackedGap, since rows committing
+ * inside it later are not re-read as gaps.
+ */
+public class GapAwareCursor {
+
+    private static final int MAX_TRACKED_GAP = 10_000;
+
+    private static final Logger logger = LoggerFactory.getLogger(GapAwareCursor.class);
+
+    private final long gapTimeoutMillis;
+    private final Runnable onUntrackedGap;
+    private final TreeSet<Long> consumed = new TreeSet<>();
+    private final TreeMap<Long, Long> gaps = new TreeMap<>();
+    private long position;
+    private long highest;
+
+    public GapAwareCursor(long position, long gapTimeoutMillis) {
+        this(position, gapTimeoutMillis, () -> {
+        });
+    }
+
+    public GapAwareCursor(long position, long gapTimeoutMillis, Runnable onUntrackedGap) {
+        this.position = position;
+        this.highest = position;
+        this.gapTimeoutMillis = gapTimeoutMillis;
+        this.onUntrackedGap = onUntrackedGap;
+    }
+
+    /**
+     * Returns true the first time an id beyond the position is offered.
+     */
+    public synchronized boolean offer(long id, long nowMillis) {
+        if (id <= position || !consumed.add(id)) {
+            return false;
+        }
+        gaps.remove(id);
+        if (id - highest <= MAX_TRACKED_GAP) {
+            for (long missing = highest + 1; missing < id; missing++) {
+                gaps.put(missing, nowMillis);
+            }
+        } else {
+            logger.warn("ids " + (highest + 1) + ".." + (id - 1) + " skipped without gap tracking, "
+                    + "jump exceeds " + MAX_TRACKED_GAP);
+            onUntrackedGap.run();
+        }
+        highest = Math.max(highest, id);
+        return true;
+    }
+
+    public synchronized void advance(long nowMillis) {
+        while (position < highest) {
+            long next = position + 1;
+            if (consumed.remove(next)) {
+                position = next;
+                continue;
+            }
+            Long firstMissing = gaps.get(next);
+            if (firstMissing == null) {
+                position = nextTracked() - 1;
+                continue;
+            }
+            if (nowMillis - firstMissing < gapTimeoutMillis) {
+                return;
+            }
+            gaps.remove(next);
+            position = next;
+        }
+    }
+
+    private long nextTracked() {
+        long next = consumed.isEmpty() ? highest : consumed.first();
+        return gaps.isEmpty() ? next : Math.min(next, gaps.firstKey());
+    }
+
+    public synchronized long getPosition() {
+        return position;
+    }
+
+    public synchronized long getHighest() {
+        return highest;
+    }
+
+    public synchronized Set<Long> getGaps() {
+        return new HashSet<>(gaps.keySet());
+    }
+}
@@ -0,0 +1,79 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.SingleFlightStats;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.stereotype.Service;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+
+/**
+ * Read-only lookups shared between concurrent requests. The leader maps the entity to a DTO inside
+ * the flight, so no managed entity or lazy association crosses request threads, and every caller
+ * gets its own copy of the DTO.
+ */
+@Service
+public class ReadCoalescer {
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    VoteCounterService voteCounterService;
+
+    private final SingleFlight<Integer, Optional<RsEvent>> rsEventById = new SingleFlight<>();
+    private final SingleFlight<Integer, Optional<User>> userById = new SingleFlight<>();
+
+    public Optional<RsEvent> findRsEventById(Integer id) {
+        return rsEventById.execute(id, () -> rsEventRepository.findById(id).map(this::toRsEvent))
+                .map(ReadCoalescer::copy);
+    }
+
+    public Optional<User> findUserById(Integer id) {
+        return userById.execute(id, () -> userRepository.findById(id).map(ReadCoalescer::toUser))
+                .map(ReadCoalescer::copy);
+    }
+
+    public Map<String, SingleFlightStats> getStats() {
+        Map<String, SingleFlightStats> stats = new LinkedHashMap<>();
+        stats.put("rsEventById", rsEventById.getStats());
+        stats.put("userById", userById.getStats());
+        return stats;
+    }
+
+    private RsEvent toRsEvent(RsEventEntitiy entitiy) {
+        return RsEvent.builder()
+                .id(entitiy.getId())
+                .eventName(entitiy.getEventName())
+                .keyword(entitiy.getKeyword())
+                .voteNum(voteCounterService.getVoteNum(entitiy))
+                .build();
+    }
+
+    private static User toUser(UserEntity userEntity) {
+        return User.builder()
+                .userName(userEntity.getName())
+                .age(userEntity.getAge())
+                .gender(userEntity.getGender())
+                .email(userEntity.getEmail())
+                .phone(userEntity.getPhone())
+                .build();
+    }
+
+    private static RsEvent copy(RsEvent rsEvent) {
+        return new RsEvent(rsEvent.getId(), rsEvent.getVoteNum(), rsEvent.getEventName(), rsEvent.getKeyword(),
+                rsEvent.getUserId());
+    }
+
+    private static User copy(User user) {
+        return new User(user.getUserName(), user.getAge(), user.getGender(), user.getEmail(), user.getPhone());
+    }
+}
@@ -0,0 +1,411 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.EntityChange;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.event.DomainEvent;
+import com.thoughtworks.rslist.event.DomainEventConsumer;
+import com.thoughtworks.rslist.event.VoteCastEvent;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Optional;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * Read-optimized columnar copy of rs_event: parallel int arrays sorted by id plus a deduplicated
+ * string pool for event names and keywords, about 20 bytes per event besides distinct strings.
+ * Loaded with plain JDBC and patched from entity callbacks, local vote events and the change feed;
+ * vote deltas are applied in place under the read lock, structural changes take the write lock.
+ * Rows changed while a rebuild scans the table are re-read once the rebuilt copy is swapped in,
+ * so the scan cannot overwrite a newer update with the value it read earlier. A re-read only
+ * replaces an event's vote count when no vote delta arrived for it while the row was being read,
+ * since the read may or may not include such a delta; reloads for entity changes keep the
+ * snapshot's count of an existing event and take the name and keyword only. A delta whose vote
+ * the re-read already saw but that lands after it is counted twice until the next rebuild.
+ */
+@Service
+public class RsEventSnapshot implements ChangeFeedListener, DomainEventConsumer {
+
+    private static final String SELECT_RS_EVENT = "SELECT e.id, e.event_name, e.keyword, e.user_id, " +
+            "e.vote_num + COALESCE((SELECT SUM(s.vote_num) FROM rs_event_vote_shard s " +
+            "WHERE s.rs_event_id = e.id), 0) FROM rs_event e";
+    private static final int RELOAD_CHUNK = 500;
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private final ReentrantReadWriteLock lock = new ReentrantReadWriteLock();
+    private Columns columns = new Columns(16);
+    private volatile boolean loaded;
+    private volatile Set<Integer> changedDuringRebuild;
+    private final List<Set<Integer>> votedDuringReload = new CopyOnWriteArrayList<>();
+
+    Logger logger = LoggerFactory.getLogger(RsEventSnapshot.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    @Scheduled(fixedDelayString = "${rs.snapshot.rebuild-interval-ms:600000}",
+            initialDelayString = "${rs.snapshot.rebuild-interval-ms:600000}")
+    public synchronized void rebuild() {
+        long start = System.currentTimeMillis();
+        Set<Integer> changed = ConcurrentHashMap.newKeySet();
+        changedDuringRebuild = changed;
+        Columns rebuilt = new Columns(1024);
+        try {
+            jdbcTemplate.query(SELECT_RS_EVENT + " ORDER BY e.id", (RowCallbackHandler) rs ->
+                    rebuilt.put(rs.getInt(1), rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5), true));
+            lock.writeLock().lock();
+            try {
+                columns = rebuilt;
+                loaded = true;
+            } finally {
+                lock.writeLock().unlock();
+            }
+        } finally {
+            changedDuringRebuild = null;
+        }
+        reload(changed, true);
+        logger.info("rs event snapshot rebuilt with " + rebuilt.size + " events in "
+                + (System.currentTimeMillis() - start) + "ms, " + changed.size() + " changed during the scan");
+    }
+
+    public boolean isLoaded() {
+        return loaded;
+    }
+
+    public Optional<RsEvent> get(Integer id) {
+        lock.readLock().lock();
+        try {
+            int index = columns.indexOf(id);
+            return index < 0 ? Optional.empty() : Optional.of(columns.toRsEvent(index));
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    /**
+     * Copies the matching rows out under the read lock, so callers can serialize them slowly
+     * without blocking writers. Null filters match everything.
+     */
+    public Iterator<RsEvent> select(String keyword, Integer userId) {
+        lock.readLock().lock();
+        try {
+            return columns.select(keyword, userId);
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void put(Integer id, String eventName, String keyword, Integer userId, Integer voteNum) {
+        lock.writeLock().lock();
+        try {
+            markChanged(id);
+            columns.put(id, eventName, keyword, userId == null ? 0 : userId, voteNum == null ? 0 : voteNum, false);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void remove(Integer id) {
+        lock.writeLock().lock();
+        try {
+            markChanged(id);
+            columns.remove(id);
+        } finally {
+            lock.writeLock().unlock();
+        }
+    }
+
+    public void addVoteNum(Integer id, int delta) {
+        lock.readLock().lock();
+        try {
+            markChanged(id);
+            for (Set<Integer> voted : votedDuringReload) {
+                voted.add(id);
+            }
+            int index = columns.indexOf(id);
+            if (index >= 0) {
+                columns.voteNums.addAndGet(index, delta);
+            }
+        } finally {
+            lock.readLock().unlock();
+        }
+    }
+
+    public void reload(Integer id) {
+        reload(Collections.singleton(id), false);
+    }
+
+    private void reload(Collection<Integer> ids, boolean refreshVoteNums) {
+        List<Integer> remaining = new ArrayList<>(ids);
+        for (int from = 0; from < remaining.size(); from += RELOAD_CHUNK) {
+            List<Integer> chunk = remaining.subList(from, Math.min(from + RELOAD_CHUNK, remaining.size()));
+            Set<Integer> voted = ConcurrentHashMap.newKeySet();
+            votedDuringReload.add(voted);
+            try {
+                Map<Integer, Object[]> rows = new HashMap<>();
+                jdbcTemplate.query(SELECT_RS_EVENT + " WHERE e.id IN ("
+                                + String.join(",", Collections.nCopies(chunk.size(), "?")) + ")",
+                        (RowCallbackHandler) rs -> rows.put(rs.getInt(1), new Object[]{
+                                rs.getString(2), rs.getString(3), rs.getInt(4), rs.getInt(5)}),
+                        chunk.toArray());
+                lock.writeLock().lock();
+                try {
+                    for (Integer id : chunk) {
+                        markChanged(id);
+                        Object[] row = rows.get(id);
+                        if (row == null) {
+                            columns.remove(id);
+                        } else {
+                            columns.put(id, (String) row[0], (String) row[1], (Integer) row[2], (Integer) row[3],
+                                    refreshVoteNums && !voted.contains(id));
+                        }
+                    }
+                } finally {
+                    lock.writeLock().unlock();
+                }
+            } finally {
+                votedDuringReload.remove(voted);
+            }
+        }
+    }
+
+    /**
+     * Called with the lock held, so a change is either applied to the columns being replaced and
+     * recorded here, or applied to the rebuilt columns after the swap.
+     */
+    private void markChanged(Integer id) {
+        Set<Integer> changed = changedDuringRebuild;
+        if (changed != null) {
+            changed.add(id);
+        }
+    }
+
+    @Override
+    public void onChange(EntityChange change) {
+        if (change.getEntityType() != EntityChange.EntityType.RS_EVENT) {
+            return;
+        }
+        switch (change.getChangeType()) {
+            case VOTE:
+                addVoteNum(change.getEntityId(), change.getVoteDelta());
+                break;
+            case DELETE:
+                remove(change.getEntityId());
+                break;
+            default:
+                reload(change.getEntityId());
+        }
+    }
+
+    @Override
+    public void onChangesLost() {
+        logger.warn("change feed may have skipped changes, rebuilding rs event snapshot");
+        rebuild();
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof VoteCastEvent && !((VoteCastEvent) event).isQuarantined()) {
+                VoteCastEvent vote = (VoteCastEvent) event;
+                addVoteNum(vote.getRsEventId(), vote.getVoteNum());
+            }
+        }
+    }
+
+    private static class Columns {
+        private int size;
+        private int[] ids;
+        private int[] userIds;
+        private int[] eventNames;
+        private int[] keywords;
+        private AtomicIntegerArray voteNums;
+        private final StringPool strings = new StringPool();
+
+        Columns(int capacity) {
+            ids = new int[capacity];
+            userIds = new int[capacity];
+            eventNames = new int[capacity];
+            keywords = new int[capacity];
+            voteNums = new AtomicIntegerArray(capacity);
+        }
+
+        int indexOf(int id) {
+            return Arrays.binarySearch(ids, 0, size, id);
+        }
+
+        void put(int id, String eventName, String keyword, int userId, int voteNum, boolean overwriteVoteNum) {
+            int index = indexOf(id);
+            if (index < 0) {
+                index = -index - 1;
+                insertAt(index);
+                ids[index] = id;
+                voteNums.set(index, voteNum);
+            } else if (overwriteVoteNum) {
+                voteNums.set(index, voteNum);
+            }
+            userIds[index] = userId;
+            eventNames[index] = strings.intern(eventName);
+            keywords[index] = strings.intern(keyword);
+        }
+
+        void remove(int id) {
+            int index = indexOf(id);
+            if (index < 0) {
+                return;
+            }
+            int moved = size - index - 1;
+            System.arraycopy(ids, index + 1, ids, index, moved);
+            System.arraycopy(userIds, index + 1, userIds, index, moved);
+            System.arraycopy(eventNames, index + 1, eventNames, index, moved);
+            System.arraycopy(keywords, index + 1, keywords, index, moved);
+            for (int i = index; i < size - 1; i++) {
+                voteNums.set(i, voteNums.get(i + 1));
+            }
+            size--;
+        }
+
+        private void insertAt(int index) {
+            if (size == ids.length) {
+                int capacity = ids.length * 2;
+                ids = Arrays.copyOf(ids, capacity);
+                userIds = Arrays.copyOf(userIds, capacity);
+                eventNames = Arrays.copyOf(eventNames, capacity);
+                keywords = Arrays.copyOf(keywords, capacity);
+                AtomicIntegerArray grown = new AtomicIntegerArray(capacity);
+                for (int i = 0; i < size; i++) {
+                    grown.set(i, voteNums.get(i));
+                }
+                voteNums = grown;
+            }
+            int moved = size - index;
+            System.arraycopy(ids, index, ids, index + 1, moved);
+            System.arraycopy(userIds, index, userIds, index + 1, moved);
+            System.arraycopy(eventNames, index, eventNames, index + 1, moved);
+            System.arraycopy(keywords, index, keywords, index + 1, moved);
+            for (int i = size; i > index; i--) {
+                voteNums.set(i, voteNums.get(i - 1));
+            }
+            size++;
+        }
+
+        RsEvent toRsEvent(int index) {
+            return RsEvent.builder()
+                    .id(ids[index])
+                    .eventName(strings.get(eventNames[index]))
+                    .keyword(strings.get(keywords[index]))
+                    .voteNum(voteNums.get(index))
+                    .build();
+        }
+
+        Iterator<RsEvent> select(String keyword, Integer userId) {
+            int keywordRef = keyword == null ? -1 : strings.find(keyword);
+            if (keyword != null && keywordRef < 0) {
+                return new Selection(this, new int[0], 0);
+            }
+            int[] selected = new int[size];
+            int count = 0;
+            for (int i = 0; i < size; i++) {
+                if ((keyword == null || keywords[i] == keywordRef) && (userId == null || userIds[i] == userId)) {
+                    selected[count++] = i;
+                }
+            }
+            return new Selection(this, selected, count);
+        }
+    }
+
+    private static class Selection implements Iterator<RsEvent> {
+        private final int[] ids;
+        private final int[] voteNums;
+        private final String[] eventNames;
+        private final String[] keywords;
+        private final int count;
+        private int next;
+
+        Selection(Columns columns, int[] indexes, int count) {
+            this.count = count;
+            ids = new int[count];
+            voteNums = new int[count];
+            eventNames = new String[count];
+            keywords = new String[count];
+            for (int i = 0; i < count; i++) {
+                int index = indexes[i];
+                ids[i] = columns.ids[index];
+                voteNums[i] = columns.voteNums.get(index);
+                eventNames[i] = columns.strings.get(columns.eventNames[index]);
+                keywords[i] = columns.strings.get(columns.keywords[index]);
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < count;
+        }
+
+        @Override
+        public RsEvent next() {
+            if (next >= count) {
+                throw new NoSuchElementException();
+            }
+            RsEvent rsEvent = RsEvent.builder()
+                    .id(ids[next])
+                    .eventName(eventNames[next])
+                    .keyword(keywords[next])
+                    .voteNum(voteNums[next])
+                    .build();
+            next++;
+            return rsEvent;
+        }
+    }
+
+    private static class StringPool {
+        private final Map<String, Integer> refs = new HashMap<>();
+        private String[] strings = new String[64];
+        private int size;
+
+        int intern(String value) {
+            if (value == null) {
+                return -1;
+            }
+            Integer ref = refs.get(value);
+            if (ref != null) {
+                return ref;
+            }
+            if (size == strings.length) {
+                strings = Arrays.copyOf(strings, size * 2);
+            }
+            strings[size] = value;
+            refs.put(value, size);
+            return size++;
+        }
+
+        int find(String value) {
+            Integer ref = refs.get(value);
+            return ref == null ? -1 : ref;
+        }
+
+        String get(int ref) {
+            return ref < 0 ? null : strings[ref];
+        }
+    }
+}
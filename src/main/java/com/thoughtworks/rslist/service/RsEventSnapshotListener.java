@@ -0,0 +1,33 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.context.annotation.Lazy;
+
+import javax.persistence.PostPersist;
+import javax.persistence.PostRemove;
+import javax.persistence.PostUpdate;
+
+public class RsEventSnapshotListener {
+
+    @Lazy
+    @Autowired
+    RsEventSnapshot rsEventSnapshot;
+
+    @PostPersist
+    @PostUpdate
+    public void afterSave(RsEventEntitiy entity) {
+        Integer id = entity.getId();
+        String eventName = entity.getEventName();
+        String keyword = entity.getKeyword();
+        Integer userId = entity.getUserId();
+        Integer voteNum = entity.getVoteNum();
+        AfterCommit.run(() -> rsEventSnapshot.put(id, eventName, keyword, userId, voteNum));
+    }
+
+    @PostRemove
+    public void afterRemove(RsEventEntitiy entity) {
+        Integer id = entity.getId();
+        AfterCommit.run(() -> rsEventSnapshot.remove(id));
+    }
+}
@@ -0,0 +1,183 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEventStats;
+import com.thoughtworks.rslist.entity.RsEventStatsEntity;
+import com.thoughtworks.rslist.event.DomainEvent;
+import com.thoughtworks.rslist.event.DomainEventConsumer;
+import com.thoughtworks.rslist.event.VoteCastEvent;
+import com.thoughtworks.rslist.repository.RsEventStatsRepository;
+import com.thoughtworks.rslist.sketch.HyperLogLog;
+import com.thoughtworks.rslist.sketch.QuantileSketch;
+import lombok.Data;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PreDestroy;
+import java.time.LocalDate;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Per-event, per-day vote statistics kept as sketches: a HyperLogLog of voter ids and a quantile
+ * sketch of vote sizes. Votes update an in-memory delta for their day bucket; a scheduled flush
+ * merges each delta into its rs_event_stats row under a row lock, so several instances can write
+ * the same bucket. A delta being flushed stays readable as in flight until its transaction has
+ * committed. A flush publishes the delta as in flight before taking it out of pending, and reads
+ * look at pending, then in flight, then the rows, so a read racing a flush may count that delta
+ * twice for a moment but never misses it.
+ */
+@Service
+public class RsEventStatsService implements DomainEventConsumer {
+
+    static final int VOTER_PRECISION = 12;
+    static final double VOTE_SIZE_ACCURACY = 0.01;
+    private static final double[] QUANTILES = {0.5, 0.9, 0.99, 1.0};
+
+    @Autowired
+    RsEventStatsRepository statsRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${rs.stats.max-days:90}")
+    int maxDays;
+    @Value("${rs.stats.retention-days:400}")
+    int retentionDays;
+
+    private final ConcurrentMap<BucketKey, Bucket> pending = new ConcurrentHashMap<>();
+    private final ConcurrentMap<BucketKey, Bucket> inFlight = new ConcurrentHashMap<>();
+
+    Logger logger = LoggerFactory.getLogger(RsEventStatsService.class);
+
+    public void record(Integer rsEventId, Integer userId, int voteNum, LocalDate day) {
+        pending.compute(new BucketKey(rsEventId, day), (key, bucket) -> {
+            Bucket updated = bucket == null ? new Bucket() : bucket;
+            updated.votes += voteNum;
+            updated.voters.add(userId);
+            updated.voteSizes.add(voteNum);
+            return updated;
+        });
+    }
+
+    @Override
+    public void onEvents(List<DomainEvent> events) {
+        for (DomainEvent event : events) {
+            if (event instanceof VoteCastEvent && !((VoteCastEvent) event).isQuarantined()) {
+                VoteCastEvent vote = (VoteCastEvent) event;
+                record(vote.getRsEventId(), vote.getUserId(), vote.getVoteNum(), vote.getVoteTime().toLocalDate());
+            }
+        }
+    }
+
+    public RsEventStats getStats(Integer rsEventId, int days) {
+        int window = Math.max(1, Math.min(days, maxDays));
+        LocalDate to = LocalDate.now();
+        LocalDate from = to.minusDays(window - 1);
+        Bucket merged = new Bucket();
+        for (LocalDate day = from; !day.isAfter(to); day = day.plusDays(1)) {
+            BucketKey key = new BucketKey(rsEventId, day);
+            for (Bucket bucket : new Bucket[]{pending.get(key), inFlight.get(key)}) {
+                if (bucket != null) {
+                    merged.merge(bucket);
+                }
+            }
+        }
+        for (RsEventStatsEntity row : statsRepository.findAllByRsEventIdAndDayBetween(rsEventId, from, to)) {
+            merged.mergeRow(row);
+        }
+
+        Map<String, Double> quantiles = new LinkedHashMap<>();
+        for (double q : merged.voteSizes.getCount() == 0 ? new double[0] : QUANTILES) {
+            quantiles.put(q == 1.0 ? "max" : "p" + Math.round(q * 100), merged.voteSizes.quantile(q));
+        }
+        return RsEventStats.builder()
+                .rsEventId(rsEventId)
+                .from(from)
+                .to(to)
+                .votes(merged.votes)
+                .distinctVoters(merged.voters.estimate())
+                .distinctVotersError(merged.voters.relativeError())
+                .voteSizeQuantiles(quantiles)
+                .voteSizeError(VOTE_SIZE_ACCURACY)
+                .build();
+    }
+
+    @Scheduled(fixedDelayString = "${rs.stats.flush-interval-ms:5000}")
+    @PreDestroy
+    public synchronized void flush() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (BucketKey key : new ArrayList<>(pending.keySet())) {
+            Bucket delta = pending.get(key);
+            if (delta == null) {
+                continue;
+            }
+            inFlight.put(key, delta);
+            pending.remove(key, delta);
+            try {
+                transactionTemplate.execute(status -> {
+                    RsEventStatsEntity row = statsRepository
+                            .findByRsEventIdAndDayForUpdate(key.getRsEventId(), key.getDay())
+                            .orElseGet(() -> RsEventStatsEntity.builder()
+                                    .rsEventId(key.getRsEventId())
+                                    .day(key.getDay())
+                                    .build());
+                    Bucket merged = new Bucket();
+                    merged.mergeRow(row);
+                    merged.merge(delta);
+                    row.setVotes(merged.votes);
+                    row.setVoters(merged.voters.toBytes());
+                    row.setVoteSizes(merged.voteSizes.toBytes());
+                    return statsRepository.save(row);
+                });
+                inFlight.remove(key);
+            } catch (RuntimeException e) {
+                pending.merge(key, delta, Bucket::merge);
+                inFlight.remove(key);
+                logger.warn("failed to flush stats bucket " + key + ", retrying on next flush: " + e.getMessage());
+            }
+        }
+    }
+
+    @Scheduled(cron = "${rs.stats.prune-cron:0 30 3 * * *}")
+    public void prune() {
+        statsRepository.deleteAllByDayBefore(LocalDate.now().minusDays(retentionDays));
+    }
+
+    @Data
+    private static class BucketKey {
+        private final Integer rsEventId;
+        private final LocalDate day;
+    }
+
+    private static class Bucket {
+        private long votes;
+        private final HyperLogLog voters = new HyperLogLog(VOTER_PRECISION);
+        private final QuantileSketch voteSizes = new QuantileSketch(VOTE_SIZE_ACCURACY);
+
+        Bucket merge(Bucket other) {
+            votes += other.votes;
+            voters.merge(other.voters);
+            voteSizes.merge(other.voteSizes);
+            return this;
+        }
+
+        void mergeRow(RsEventStatsEntity row) {
+            votes += row.getVotes();
+            if (row.getVoters() != null) {
+                voters.merge(HyperLogLog.fromBytes(row.getVoters()));
+            }
+            if (row.getVoteSizes() != null) {
+                voteSizes.merge(QuantileSketch.fromBytes(row.getVoteSizes()));
+            }
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.SingleFlightStats;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Supplier;
+
+/**
+ * Concurrent callers asking for the same key share one in-flight load and its result. The fast
+ * path is a lock-free map lookup or CAS insert; only followers block, waiting on the leader.
+ */
+public class SingleFlight<K, V> {
+
+    private final ConcurrentMap<K, CompletableFuture<V>> inFlight = new ConcurrentHashMap<>();
+    private final LongAdder calls = new LongAdder();
+    private final LongAdder loads = new LongAdder();
+    private final LongAdder deduplicated = new LongAdder();
+
+    public V execute(K key, Supplier<V> loader) {
+        calls.increment();
+        CompletableFuture<V> existing = inFlight.get(key);
+        if (existing == null) {
+            CompletableFuture<V> created = new CompletableFuture<>();
+            existing = inFlight.putIfAbsent(key, created);
+            if (existing == null) {
+                return load(key, created, loader);
+            }
+        }
+        deduplicated.increment();
+        try {
+            return existing.join();
+        } catch (CompletionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw e;
+        }
+    }
+
+    private V load(K key, CompletableFuture<V> future, Supplier<V> loader) {
+        loads.increment();
+        try {
+            V value = loader.get();
+            future.complete(value);
+            return value;
+        } catch (Throwable t) {
+            future.completeExceptionally(t);
+            throw t;
+        } finally {
+            inFlight.remove(key, future);
+        }
+    }
+
+    public SingleFlightStats getStats() {
+        return new SingleFlightStats(calls.sum(), loads.sum(), deduplicated.sum(), inFlight.size());
+    }
+}
@@ -0,0 +1,245 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.VoteAnomaly;
+import com.thoughtworks.rslist.sketch.CountMinSketch;
+import com.thoughtworks.rslist.sketch.HyperLogLog;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+
+import javax.annotation.PostConstruct;
+import java.time.LocalDateTime;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Watches accepted votes for brigading over a sliding window made of a ring of time buckets.
+ * Each bucket counts votes per user, per event, per subnet and per subnet and event in one
+ * count-min sketch, and distinct voters per subnet in small HyperLogLogs, so memory stays fixed however
+ * many users and addresses show up. Inspecting a vote is a few dozen atomic counter operations;
+ * the only lock is taken by the first vote of a new bucket to reset it.
+ */
+@Service
+public class VoteAnomalyDetector {
+
+    private static final long USER = 0x1L << 60;
+    private static final long SUBNET = 0x2L << 60;
+    private static final long SUBNET_EVENT = 0x3L << 60;
+    private static final long EVENT = 0x4L << 60;
+    private static final long SUBNET_BITS = (1L << 28) - 1;
+
+    @Value("${rs.anomaly.enabled:true}")
+    boolean enabled;
+    @Value("${rs.anomaly.quarantine:false}")
+    boolean quarantine;
+    @Value("${rs.anomaly.window-seconds:60}")
+    int windowSeconds;
+    @Value("${rs.anomaly.buckets:6}")
+    int buckets;
+    @Value("${rs.anomaly.user-requests:30}")
+    int userRequests;
+    @Value("${rs.anomaly.subnet-votes:1000}")
+    int subnetVotes;
+    @Value("${rs.anomaly.subnet-event-votes:200}")
+    int subnetEventVotes;
+    @Value("${rs.anomaly.event-votes:5000}")
+    int eventVotes;
+    @Value("${rs.anomaly.subnet-users:20}")
+    int subnetUsers;
+    @Value("${rs.anomaly.sketch-width:4096}")
+    int sketchWidth;
+    @Value("${rs.anomaly.max-tracked-subnets:4096}")
+    int maxTrackedSubnets;
+    @Value("${rs.anomaly.max-records:1000}")
+    int maxRecords;
+
+    private Bucket[] ring;
+    private final Deque<VoteAnomaly> records = new ArrayDeque<>();
+
+    Logger logger = LoggerFactory.getLogger(VoteAnomalyDetector.class);
+
+    @PostConstruct
+    public void initialize() {
+        ring = new Bucket[buckets];
+        for (int i = 0; i < buckets; i++) {
+            ring[i] = new Bucket(sketchWidth);
+        }
+    }
+
+    /**
+     * Counts the vote and returns the first rule it breaks, if any. The returned anomaly is
+     * marked quarantined when rs.anomaly.quarantine is on and the caller should keep the vote
+     * out of the event's count.
+     */
+    public Optional<VoteAnomaly> inspect(Integer userId, Integer rsEventId, int voteNum, String address) {
+        if (!enabled) {
+            return Optional.empty();
+        }
+        String subnet = subnetOf(address);
+        int subnetId = subnet.hashCode();
+        int votes = Math.max(1, voteNum);
+        long userKey = USER | (userId & 0xffffffffL);
+        long subnetKey = SUBNET | (subnetId & 0xffffffffL);
+        long eventKey = EVENT | (rsEventId & 0xffffffffL);
+        long subnetEventKey = subnetEventKey(subnetId, rsEventId);
+
+        long slot = System.currentTimeMillis() / 1000 / bucketSeconds();
+        Bucket current = bucket(slot);
+        current.counts.add(userKey, 1);
+        current.counts.add(subnetKey, votes);
+        current.counts.add(subnetEventKey, votes);
+        current.counts.add(eventKey, votes);
+        HyperLogLog voters = current.subnetVoters.get(subnetId);
+        if (voters == null && current.subnetVoters.size() < maxTrackedSubnets) {
+            voters = current.subnetVoters.computeIfAbsent(subnetId, id -> new HyperLogLog(8));
+        }
+        if (voters != null) {
+            voters.add(userId);
+        }
+
+        long observed = windowCount(slot, userKey);
+        if (observed > userRequests) {
+            return Optional.of(record("user-requests", userId, rsEventId, subnet, observed, userRequests));
+        }
+        observed = windowCount(slot, subnetEventKey);
+        if (observed > subnetEventVotes) {
+            return Optional.of(record("subnet-event-votes", userId, rsEventId, subnet, observed, subnetEventVotes));
+        }
+        observed = windowCount(slot, subnetKey);
+        if (observed > subnetVotes) {
+            return Optional.of(record("subnet-votes", userId, rsEventId, subnet, observed, subnetVotes));
+        }
+        if (observed > subnetUsers) {
+            long distinctVoters = windowDistinctVoters(slot, subnetId);
+            if (distinctVoters > subnetUsers) {
+                return Optional.of(record("subnet-users", userId, rsEventId, subnet, distinctVoters, subnetUsers));
+            }
+        }
+        observed = windowCount(slot, eventKey);
+        if (observed > eventVotes) {
+            return Optional.of(record("event-votes", userId, rsEventId, subnet, observed, eventVotes));
+        }
+        return Optional.empty();
+    }
+
+    public List<VoteAnomaly> getRecords() {
+        synchronized (records) {
+            return new ArrayList<>(records);
+        }
+    }
+
+    private VoteAnomaly record(String rule, Integer userId, Integer rsEventId, String subnet,
+                               long observed, long threshold) {
+        VoteAnomaly anomaly = VoteAnomaly.builder()
+                .detectedAt(LocalDateTime.now())
+                .rule(rule)
+                .userId(userId)
+                .rsEventId(rsEventId)
+                .subnet(subnet)
+                .observed(observed)
+                .threshold(threshold)
+                .quarantined(quarantine)
+                .build();
+        synchronized (records) {
+            VoteAnomaly latest = records.peekFirst();
+            if (latest == null || !rule.equals(latest.getRule()) || !subnet.equals(latest.getSubnet())) {
+                logger.warn("vote anomaly " + rule + " from " + subnet + ": " + observed + " > " + threshold);
+            }
+            if (records.size() >= maxRecords) {
+                records.removeLast();
+            }
+            records.addFirst(anomaly);
+        }
+        return anomaly;
+    }
+
+    /**
+     * The subnet id is already a string hash, so it gives up its top four bits to the type tag
+     * rather than sharing them; the event id keeps all 32.
+     */
+    static long subnetEventKey(int subnetId, Integer rsEventId) {
+        return SUBNET_EVENT | (subnetId & SUBNET_BITS) << 32 | (rsEventId & 0xffffffffL);
+    }
+
+    private long windowCount(long slot, long key) {
+        long count = 0;
+        for (Bucket bucket : ring) {
+            if (isInWindow(bucket, slot)) {
+                count += bucket.counts.estimate(key);
+            }
+        }
+        return count;
+    }
+
+    private long windowDistinctVoters(long slot, int subnetId) {
+        HyperLogLog merged = new HyperLogLog(8);
+        for (Bucket bucket : ring) {
+            HyperLogLog voters = bucket.subnetVoters.get(subnetId);
+            if (voters != null && isInWindow(bucket, slot)) {
+                merged.merge(voters);
+            }
+        }
+        return merged.estimate();
+    }
+
+    /**
+     * Reuses the ring slot for a new time bucket. A vote racing with the reset may land in the
+     * old counts and be lost; the window is approximate anyway.
+     */
+    private Bucket bucket(long slot) {
+        Bucket bucket = ring[(int) (slot % buckets)];
+        if (bucket.slot != slot) {
+            synchronized (bucket) {
+                if (bucket.slot != slot) {
+                    bucket.counts.clear();
+                    bucket.subnetVoters.clear();
+                    bucket.slot = slot;
+                }
+            }
+        }
+        return bucket;
+    }
+
+    private boolean isInWindow(Bucket bucket, long slot) {
+        long bucketSlot = bucket.slot;
+        return bucketSlot > slot - buckets && bucketSlot <= slot;
+    }
+
+    private int bucketSeconds() {
+        return Math.max(1, windowSeconds / buckets);
+    }
+
+    static String subnetOf(String address) {
+        if (address == null) {
+            return "unknown";
+        }
+        if (address.indexOf(':') >= 0) {
+            int end = -1;
+            for (int groups = 0; groups < 3; groups++) {
+                end = address.indexOf(':', end + 1);
+                if (end < 0) {
+                    return address;
+                }
+            }
+            return address.substring(0, end) + "::/48";
+        }
+        int end = address.lastIndexOf('.');
+        return end < 0 ? address : address.substring(0, end) + ".0/24";
+    }
+
+    private static class Bucket {
+        private volatile long slot = Long.MIN_VALUE;
+        private final CountMinSketch counts;
+        private final ConcurrentMap<Integer, HyperLogLog> subnetVoters = new ConcurrentHashMap<>();
+
+        Bucket(int width) {
+            counts = new CountMinSketch(width, 4);
+        }
+    }
+}
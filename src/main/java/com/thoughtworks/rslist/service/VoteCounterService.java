@@ -0,0 +1,152 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.RsEventVoteShardEntity;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.RsEventVoteShardRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.annotation.Transactional;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * Keeps rs_event vote counts. Hot events are promoted to N counter rows in rs_event_vote_shard so
+ * concurrent votes do not all wait on the same rs_event row lock; shards are summed on read and
+ * periodically compacted back into rs_event.vote_num.
+ */
+@Service
+public class VoteCounterService {
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+    @Autowired
+    RsEventVoteShardRepository shardRepository;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    @Value("${rs.vote.shard.count:8}")
+    int shardCount;
+    @Value("${rs.vote.shard.promote-threshold:50}")
+    int promoteThreshold;
+
+    private final Map<Integer, WriteRate> writeRates = new ConcurrentHashMap<>();
+    private final WriteRate voteRate = new WriteRate();
+
+    Logger logger = LoggerFactory.getLogger(VoteCounterService.class);
+
+    @Transactional
+    public void increment(RsEventEntitiy rsEvent, Integer userId, int num) {
+        Integer rsEventId = rsEvent.getId();
+        voteRate.record(currentSecond());
+        if (rsEvent.getVoteShardCount() > 0) {
+            shardRepository.increment(rsEventId, shardOf(userId, rsEvent.getVoteShardCount()), num);
+            return;
+        }
+        rsEventRepository.incrementVoteNum(rsEventId, num);
+        WriteRate rate = writeRates.computeIfAbsent(rsEventId, id -> new WriteRate());
+        if (rate.record(currentSecond()) > promoteThreshold) {
+            promote(rsEventId, shardCount);
+        }
+    }
+
+    @Transactional
+    public boolean promote(Integer rsEventId, int shardCount) {
+        if (rsEventRepository.markSharded(rsEventId, shardCount) == 0) {
+            return false;
+        }
+        List<RsEventVoteShardEntity> shards = IntStream.range(0, shardCount)
+                .mapToObj(i -> RsEventVoteShardEntity.builder()
+                        .rsEventId(rsEventId)
+                        .shardIndex(i)
+                        .voteNum(0)
+                        .build())
+                .collect(Collectors.toList());
+        shardRepository.saveAll(shards);
+        writeRates.remove(rsEventId);
+        logger.info("rs event " + rsEventId + " promoted to " + shardCount + " vote shards");
+        return true;
+    }
+
+    public int getVoteNum(RsEventEntitiy rsEvent) {
+        if (rsEvent.getVoteShardCount() == 0) {
+            return rsEvent.getVoteNum();
+        }
+        return rsEvent.getVoteNum() + (int) shardRepository.sumVoteNum(rsEvent.getId());
+    }
+
+    public int getVotesPerSecond() {
+        return voteRate.get(currentSecond());
+    }
+
+    public Map<Integer, Integer> getShardedVoteNums() {
+        Map<Integer, Integer> voteNums = new HashMap<>();
+        for (Object[] row : shardRepository.sumVoteNumGroupByRsEventId()) {
+            voteNums.put((Integer) row[0], ((Number) row[1]).intValue());
+        }
+        return voteNums;
+    }
+
+    @Scheduled(fixedDelayString = "${rs.vote.shard.compact-interval-ms:5000}")
+    public void compact() {
+        TransactionTemplate transactionTemplate = new TransactionTemplate(transactionManager);
+        for (Integer rsEventId : rsEventRepository.findShardedIds()) {
+            transactionTemplate.execute(status -> {
+                int sum = shardRepository.findAllByRsEventIdForUpdate(rsEventId).stream()
+                        .mapToInt(RsEventVoteShardEntity::getVoteNum)
+                        .sum();
+                if (sum != 0) {
+                    rsEventRepository.incrementVoteNum(rsEventId, sum);
+                    shardRepository.reset(rsEventId);
+                }
+                return sum;
+            });
+        }
+        transactionTemplate.execute(status -> shardRepository.deleteOrphans());
+        long now = currentSecond();
+        writeRates.values().removeIf(rate -> rate.isIdle(now));
+    }
+
+    private static int shardOf(Integer userId, int shardCount) {
+        int hash = userId == null ? (int) Thread.currentThread().getId() : userId;
+        return Math.floorMod(hash * 0x9E3779B9, shardCount);
+    }
+
+    private static long currentSecond() {
+        return System.currentTimeMillis() / 1000;
+    }
+
+    private static class WriteRate {
+        private final AtomicLong second = new AtomicLong();
+        private final AtomicInteger count = new AtomicInteger();
+
+        int record(long now) {
+            long current = second.get();
+            if (current != now && second.compareAndSet(current, now)) {
+                count.set(0);
+            }
+            return count.incrementAndGet();
+        }
+
+        int get(long now) {
+            return now - second.get() <= 1 ? count.get() : 0;
+        }
+
+        boolean isIdle(long now) {
+            return now - second.get() > 1;
+        }
+    }
+}
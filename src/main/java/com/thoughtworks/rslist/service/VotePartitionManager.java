@@ -0,0 +1,193 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.VotePartition;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.boot.context.event.ApplicationReadyEvent;
+import org.springframework.context.event.EventListener;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.scheduling.annotation.Scheduled;
+import org.springframework.stereotype.Service;
+
+import java.sql.Connection;
+import java.sql.PreparedStatement;
+import java.sql.ResultSet;
+import java.sql.SQLException;
+import java.time.YearMonth;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static com.thoughtworks.rslist.service.VotePartitionPlan.HISTORY;
+import static com.thoughtworks.rslist.service.VotePartitionPlan.TABLE;
+
+/**
+ * Keeps vote_entity range-partitioned by month on vote_time (MySQL only). Range queries on
+ * vote_time are pruned to the overlapping partitions by MySQL itself; retention drops whole
+ * partitions instead of deleting rows, optionally exchanging them into an archive table first.
+ * Every node schedules maintenance, but only the one holding the vote_partition_maintenance
+ * lock runs it; the others skip that round.
+ */
+@Service
+public class VotePartitionManager {
+
+    static final String LOCK = "vote_partition_maintenance";
+
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    @Value("${rs.vote.partition.retention-months:24}")
+    int retentionMonths;
+    @Value("${rs.vote.partition.ahead-months:3}")
+    int aheadMonths;
+    @Value("${rs.vote.partition.archive:false}")
+    boolean archive;
+
+    private volatile boolean enabled;
+
+    Logger logger = LoggerFactory.getLogger(VotePartitionManager.class);
+
+    @EventListener(ApplicationReadyEvent.class)
+    public void initialize() {
+        String product = jdbcTemplate.execute(
+                (ConnectionCallback<String>) connection -> connection.getMetaData().getDatabaseProductName());
+        enabled = "MySQL".equalsIgnoreCase(product);
+        if (!enabled) {
+            logger.info("vote partitioning disabled on " + product);
+            return;
+        }
+        withLock(() -> {
+            if (getPartitions().isEmpty()) {
+                partition();
+            }
+            reorganize();
+        });
+    }
+
+    @Scheduled(cron = "${rs.vote.partition.maintain-cron:0 0 3 * * *}")
+    public void maintain() {
+        if (!enabled) {
+            return;
+        }
+        withLock(this::reorganize);
+    }
+
+    public List<VotePartition> getPartitions() {
+        if (!enabled) {
+            return Collections.emptyList();
+        }
+        return jdbcTemplate.query("SELECT partition_name, partition_description, table_rows " +
+                        "FROM information_schema.partitions " +
+                        "WHERE table_schema = DATABASE() AND table_name = ? AND partition_name IS NOT NULL " +
+                        "ORDER BY partition_ordinal_position",
+                (rs, rowNum) -> new VotePartition(rs.getString(1), rs.getString(2), rs.getLong(3)),
+                TABLE);
+    }
+
+    /**
+     * GET_LOCK belongs to the connection that took it, so that connection is held for the whole
+     * run while the DDL itself goes through the pool as usual.
+     */
+    private void withLock(Runnable work) {
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            if (!lock(connection, "SELECT GET_LOCK(?, 0)")) {
+                logger.info("vote partition maintenance running on another node, skipping");
+                return null;
+            }
+            try {
+                work.run();
+            } finally {
+                lock(connection, "SELECT RELEASE_LOCK(?)");
+            }
+            return null;
+        });
+    }
+
+    private static boolean lock(Connection connection, String sql) throws SQLException {
+        try (PreparedStatement statement = connection.prepareStatement(sql)) {
+            statement.setString(1, LOCK);
+            try (ResultSet rs = statement.executeQuery()) {
+                return rs.next() && rs.getInt(1) == 1;
+            }
+        }
+    }
+
+    private void reorganize() {
+        YearMonth now = YearMonth.now();
+        List<YearMonth> months = getMonths();
+        VotePartitionPlan.addMonths(months, now, aheadMonths).forEach(jdbcTemplate::execute);
+        VotePartitionPlan.expired(months, now, retentionMonths).forEach(this::dropPartition);
+        purgeHistory();
+    }
+
+    private void partition() {
+        for (String foreignKey : jdbcTemplate.queryForList("SELECT constraint_name " +
+                "FROM information_schema.table_constraints " +
+                "WHERE table_schema = DATABASE() AND table_name = ? AND constraint_type = 'FOREIGN KEY'",
+                String.class, TABLE)) {
+            jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP FOREIGN KEY " + foreignKey);
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PRIMARY KEY, ADD PRIMARY KEY (id, vote_time)");
+
+        YearMonth first = YearMonth.now().minusMonths(retentionMonths);
+        jdbcTemplate.execute(VotePartitionPlan.partitionTable(first, YearMonth.now()));
+        logger.info(TABLE + " partitioned by month from " + first);
+    }
+
+    private void dropPartition(String name) {
+        if (archive) {
+            archivePartition(name);
+        }
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " DROP PARTITION " + name);
+        logger.info("dropped vote partition " + name + (archive ? " after archiving" : ""));
+    }
+
+    /**
+     * p_history holds votes whose client-supplied vote_time is older than the first monthly
+     * partition. Those were accepted just now rather than aged out, so they are archived before
+     * the truncate whether or not rs.vote.partition.archive is on.
+     */
+    private void purgeHistory() {
+        int rows = jdbcTemplate.queryForObject(
+                "SELECT COUNT(*) FROM " + TABLE + " PARTITION (" + HISTORY + ")", Integer.class);
+        if (rows == 0) {
+            return;
+        }
+        archivePartition(HISTORY);
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " TRUNCATE PARTITION " + HISTORY);
+        logger.info("moved " + rows + " votes older than the first vote partition to "
+                + VotePartitionPlan.archiveTable(HISTORY));
+    }
+
+    /**
+     * A new archive table is swapped in with EXCHANGE PARTITION, which moves no data. An existing
+     * one, left by an earlier run that failed part way or holding earlier history, gets the
+     * remaining rows copied in instead, so nothing already archived is swapped back out.
+     */
+    private void archivePartition(String name) {
+        String archiveTable = VotePartitionPlan.archiveTable(name);
+        if (tableExists(archiveTable)) {
+            jdbcTemplate.execute("INSERT INTO " + archiveTable + " SELECT * FROM " + TABLE
+                    + " PARTITION (" + name + ")");
+            return;
+        }
+        jdbcTemplate.execute("CREATE TABLE " + archiveTable + " LIKE " + TABLE);
+        jdbcTemplate.execute("ALTER TABLE " + archiveTable + " REMOVE PARTITIONING");
+        jdbcTemplate.execute("ALTER TABLE " + TABLE + " EXCHANGE PARTITION " + name
+                + " WITH TABLE " + archiveTable);
+    }
+
+    private boolean tableExists(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM information_schema.tables " +
+                "WHERE table_schema = DATABASE() AND table_name = ?", Integer.class, table) > 0;
+    }
+
+    private List<YearMonth> getMonths() {
+        return VotePartitionPlan.months(getPartitions().stream()
+                .map(VotePartition::getName)
+                .collect(Collectors.toList()));
+    }
+}
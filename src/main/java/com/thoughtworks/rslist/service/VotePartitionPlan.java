@@ -0,0 +1,89 @@
+package com.thoughtworks.rslist.service;
+
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.stream.Collectors;
+
+/**
+ * The partition layout of vote_entity and the DDL that maintains it, kept apart from JDBC so it
+ * can be checked without MySQL.
+ */
+final class VotePartitionPlan {
+
+    static final String TABLE = "vote_entity";
+    static final String HISTORY = "p_history";
+    static final String FUTURE = "p_future";
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+    private static final DateTimeFormatter BOUND = DateTimeFormatter.ofPattern("yyyy-MM-'01 00:00:00'");
+
+    private VotePartitionPlan() {
+    }
+
+    /**
+     * History below the first month, one partition per month up to the current one, then future.
+     */
+    static String partitionTable(YearMonth first, YearMonth now) {
+        List<String> partitions = new ArrayList<>();
+        partitions.add("PARTITION " + HISTORY + " VALUES LESS THAN ('" + first.format(BOUND) + "')");
+        for (YearMonth month = first; !month.isAfter(now); month = month.plusMonths(1)) {
+            partitions.add(monthPartition(month));
+        }
+        partitions.add(futurePartition());
+        return "ALTER TABLE " + TABLE + " PARTITION BY RANGE COLUMNS(vote_time) ("
+                + String.join(", ", partitions) + ")";
+    }
+
+    /**
+     * Splits the future partition once per missing month up to aheadMonths past now.
+     */
+    static List<String> addMonths(List<YearMonth> months, YearMonth now, int aheadMonths) {
+        YearMonth last = months.isEmpty() ? now.minusMonths(1) : months.get(months.size() - 1);
+        List<String> statements = new ArrayList<>();
+        for (YearMonth month = last.plusMonths(1); !month.isAfter(now.plusMonths(aheadMonths));
+             month = month.plusMonths(1)) {
+            statements.add("ALTER TABLE " + TABLE + " REORGANIZE PARTITION " + FUTURE + " INTO ("
+                    + monthPartition(month) + ", " + futurePartition() + ")");
+        }
+        return statements;
+    }
+
+    static List<String> expired(List<YearMonth> months, YearMonth now, int retentionMonths) {
+        YearMonth cutoff = now.minusMonths(retentionMonths);
+        return months.stream()
+                .filter(month -> month.isBefore(cutoff))
+                .map(VotePartitionPlan::partitionName)
+                .collect(Collectors.toList());
+    }
+
+    /**
+     * The monthly partitions among the given names, oldest first.
+     */
+    static List<YearMonth> months(List<String> partitionNames) {
+        List<YearMonth> months = partitionNames.stream()
+                .filter(name -> !HISTORY.equals(name) && !FUTURE.equals(name))
+                .map(name -> YearMonth.parse(name.substring(1), MONTH))
+                .collect(Collectors.toList());
+        Collections.sort(months);
+        return months;
+    }
+
+    static String archiveTable(String partitionName) {
+        return HISTORY.equals(partitionName) ? "vote_archive_history" : "vote_archive_" + partitionName.substring(1);
+    }
+
+    static String partitionName(YearMonth month) {
+        return "p" + month.format(MONTH);
+    }
+
+    private static String monthPartition(YearMonth month) {
+        return "PARTITION " + partitionName(month)
+                + " VALUES LESS THAN ('" + month.plusMonths(1).format(BOUND) + "')";
+    }
+
+    private static String futurePartition() {
+        return "PARTITION " + FUTURE + " VALUES LESS THAN (MAXVALUE)";
+    }
+}
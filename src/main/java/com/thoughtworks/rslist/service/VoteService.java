@@ -0,0 +1,399 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.EntityChange;
+import com.thoughtworks.rslist.domain.GroupCommitStats;
+import com.thoughtworks.rslist.domain.VoteAnomaly;
+import com.thoughtworks.rslist.domain.VoteResult;
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.VoteEntity;
+import com.thoughtworks.rslist.entity.VoteOutboxEntity;
+import com.thoughtworks.rslist.event.DomainEventBus;
+import com.thoughtworks.rslist.event.VoteCastEvent;
+import com.thoughtworks.rslist.exception.VoteCommitException;
+import com.thoughtworks.rslist.observability.AllocationTracker;
+import com.thoughtworks.rslist.observability.JfrEvents;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteOutboxRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Service;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import javax.annotation.PostConstruct;
+import javax.annotation.PreDestroy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Records votes. With rs.vote.group-commit.enabled on, concurrent votes are queued and a single
+ * committer thread writes them in micro-batches of up to max-batch votes, waiting at most
+ * linger-ms after the first one: one transaction per batch, one JDBC batch for the vote rows and
+ * one vote_num increment per event. Every caller still gets its own result. When a batch fails,
+ * its votes are retried in a transaction each so one bad vote cannot fail the others.
+ * Votes that find the queue full are committed on the caller's thread, as with group commit off.
+ * A caller waits at most result-timeout-ms for its batch and then gets a VoteCommitException, as it
+ * does when the batch fails with an Error; a timed out vote may still commit. What the committer
+ * allocates for a batch is recorded against the endpoints its votes came from.
+ */
+@Service
+public class VoteService {
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    VoteRepository voteRepository;
+    @Autowired
+    VoteOutboxRepository voteOutboxRepository;
+    @Autowired
+    VoteCounterService voteCounterService;
+    @Autowired
+    VoteAnomalyDetector voteAnomalyDetector;
+    @Autowired
+    ChangeFeed changeFeed;
+    @Autowired
+    DomainEventBus domainEventBus;
+    @Autowired
+    PlatformTransactionManager transactionManager;
+    @Autowired
+    AllocationTracker allocationTracker;
+
+    @Value("${rs.vote.group-commit.enabled:false}")
+    boolean groupCommit;
+    @Value("${rs.vote.group-commit.max-batch:64}")
+    int maxBatch;
+    @Value("${rs.vote.group-commit.linger-ms:2}")
+    long lingerMillis;
+    @Value("${rs.vote.group-commit.queue-capacity:4096}")
+    int queueCapacity;
+    @Value("${rs.vote.group-commit.result-timeout-ms:5000}")
+    long resultTimeoutMillis;
+
+    private BlockingQueue<PendingVote> queue;
+    private Thread committer;
+    private volatile boolean running;
+    private final LongAdder batches = new LongAdder();
+    private final LongAdder batchedVotes = new LongAdder();
+    private final LongAdder retriedBatches = new LongAdder();
+    private final LongAdder directCommits = new LongAdder();
+    private volatile int largestBatch;
+
+    Logger logger = LoggerFactory.getLogger(VoteService.class);
+
+    @PostConstruct
+    public void start() {
+        if (!groupCommit) {
+            return;
+        }
+        queue = new ArrayBlockingQueue<>(queueCapacity);
+        running = true;
+        committer = new Thread(this::runCommitter, "vote-group-commit");
+        committer.setDaemon(true);
+        committer.start();
+    }
+
+    @PreDestroy
+    public void stop() {
+        if (committer == null) {
+            return;
+        }
+        running = false;
+        try {
+            committer.join(TimeUnit.SECONDS.toMillis(5));
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<PendingVote> rest = new ArrayList<>();
+        queue.drainTo(rest);
+        if (!rest.isEmpty()) {
+            commitBatch(rest);
+        }
+    }
+
+    public VoteResult vote(Integer rsEventId, Integer userId, int voteNum, LocalDateTime voteTime,
+                           String clientAddress) throws VoteCommitException {
+        PendingVote pending = new PendingVote(rsEventId, userId, voteNum, voteTime, clientAddress,
+                allocationTracker.currentEndpoint());
+        boolean queued = running && queue.offer(pending);
+        if (queued && !running && queue.remove(pending)) {
+            queued = false;
+        }
+        if (!queued) {
+            directCommits.increment();
+            commit(Collections.singletonList(pending));
+        }
+        try {
+            return pending.result.get(resultTimeoutMillis, TimeUnit.MILLISECONDS);
+        } catch (TimeoutException e) {
+            throw new VoteCommitException("vote not committed within " + resultTimeoutMillis + "ms");
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new VoteCommitException("interrupted while waiting for vote commit", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new VoteCommitException("vote commit failed: " + e.getCause(), e.getCause());
+        }
+    }
+
+    public GroupCommitStats getStats() {
+        long batchCount = batches.sum();
+        long votes = batchedVotes.sum();
+        return GroupCommitStats.builder()
+                .enabled(groupCommit)
+                .maxBatch(maxBatch)
+                .lingerMillis(lingerMillis)
+                .queued(queue == null ? 0 : queue.size())
+                .batches(batchCount)
+                .votes(votes)
+                .averageBatch(batchCount == 0 ? 0 : (double) votes / batchCount)
+                .largestBatch(largestBatch)
+                .retriedBatches(retriedBatches.sum())
+                .directCommits(directCommits.sum())
+                .build();
+    }
+
+    private void runCommitter() {
+        while (running || !queue.isEmpty()) {
+            List<PendingVote> batch = new ArrayList<>(maxBatch);
+            try {
+                PendingVote first = queue.poll(100, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMillis);
+                while (batch.size() < maxBatch) {
+                    if (queue.drainTo(batch, maxBatch - batch.size()) > 0) {
+                        continue;
+                    }
+                    PendingVote next = queue.poll(deadline - System.nanoTime(), TimeUnit.NANOSECONDS);
+                    if (next == null) {
+                        break;
+                    }
+                    batch.add(next);
+                }
+            } catch (InterruptedException e) {
+                running = false;
+            }
+            if (!batch.isEmpty()) {
+                commitBatch(batch);
+            }
+        }
+    }
+
+    private void commitBatch(List<PendingVote> batch) {
+        long allocatedBefore = allocationTracker.currentThreadAllocatedBytes();
+        try {
+            commitOrRetry(batch);
+        } finally {
+            if (allocatedBefore >= 0) {
+                recordAllocation(batch, allocationTracker.currentThreadAllocatedBytes() - allocatedBefore);
+            }
+        }
+    }
+
+    private void recordAllocation(List<PendingVote> batch, long allocated) {
+        Map<String, Integer> votesByEndpoint = new HashMap<>();
+        for (PendingVote vote : batch) {
+            if (vote.endpoint != null) {
+                votesByEndpoint.merge(vote.endpoint, 1, Integer::sum);
+            }
+        }
+        votesByEndpoint.forEach((endpoint, votes) ->
+                allocationTracker.record(endpoint, allocated * votes / batch.size(), 0));
+    }
+
+    private void commitOrRetry(List<PendingVote> batch) {
+        batches.increment();
+        batchedVotes.add(batch.size());
+        largestBatch = Math.max(largestBatch, batch.size());
+        try {
+            commit(batch);
+            return;
+        } catch (Throwable e) {
+            if (batch.size() == 1) {
+                batch.get(0).result.completeExceptionally(e);
+                return;
+            }
+            retriedBatches.increment();
+            logger.warn("vote batch of " + batch.size() + " failed, retrying one by one: " + e.getMessage());
+        }
+        for (PendingVote vote : batch) {
+            try {
+                commit(Collections.singletonList(vote));
+            } catch (Throwable e) {
+                vote.result.completeExceptionally(e);
+            }
+        }
+    }
+
+    /**
+     * Writes the votes in one transaction and completes their results once it has committed.
+     */
+    private void commit(List<PendingVote> votes) {
+        JfrEvents.VoteCommit span = JfrEvents.voteCommit();
+        List<VoteResult> results = new TransactionTemplate(transactionManager).execute(status -> apply(votes));
+        span.end(votes.size(), Collections.frequency(results, VoteResult.ACCEPTED),
+                Thread.currentThread() == committer);
+        for (int i = 0; i < votes.size(); i++) {
+            votes.get(i).result.complete(results.get(i));
+        }
+    }
+
+    private List<VoteResult> apply(List<PendingVote> votes) {
+        Set<Integer> rsEventIds = new HashSet<>();
+        Set<Integer> userIds = new HashSet<>();
+        for (PendingVote vote : votes) {
+            rsEventIds.add(vote.rsEventId);
+            userIds.add(vote.userId);
+        }
+        Map<Integer, RsEventEntitiy> rsEvents = new HashMap<>();
+        rsEventRepository.findAllById(rsEventIds).forEach(rsEvent -> rsEvents.put(rsEvent.getId(), rsEvent));
+        Set<Integer> knownUserIds = new HashSet<>();
+        userRepository.findAllById(userIds).forEach(user -> knownUserIds.add(user.getId()));
+
+        VoteResult[] results = new VoteResult[votes.size()];
+        Map<Integer, List<Integer>> votesByUser = new TreeMap<>();
+        for (int i = 0; i < votes.size(); i++) {
+            PendingVote vote = votes.get(i);
+            if (!rsEvents.containsKey(vote.rsEventId)) {
+                results[i] = VoteResult.UNKNOWN_RS_EVENT;
+            } else if (!knownUserIds.contains(vote.userId)) {
+                results[i] = VoteResult.UNKNOWN_USER;
+            } else {
+                votesByUser.computeIfAbsent(vote.userId, userId -> new ArrayList<>()).add(i);
+            }
+        }
+        votesByUser.forEach((userId, indexes) -> spendVotes(userId, votes, indexes, results));
+
+        List<VoteEntity> voteEntities = new ArrayList<>();
+        Map<Integer, Integer> rsEventDeltas = new TreeMap<>();
+        Map<Integer, Integer> rsEventVoters = new HashMap<>();
+        Map<Integer, Integer> userDeltas = new TreeMap<>();
+        for (int i = 0; i < votes.size(); i++) {
+            if (results[i] != VoteResult.ACCEPTED) {
+                continue;
+            }
+            PendingVote vote = votes.get(i);
+            RsEventEntitiy rsEvent = rsEvents.get(vote.rsEventId);
+            if (vote.quarantined == null) {
+                vote.quarantined = voteAnomalyDetector
+                        .inspect(vote.userId, rsEvent.getId(), vote.voteNum, vote.clientAddress)
+                        .map(VoteAnomaly::isQuarantined)
+                        .orElse(false);
+            }
+            userDeltas.merge(vote.userId, -vote.voteNum, Integer::sum);
+            if (!vote.quarantined) {
+                rsEventDeltas.merge(rsEvent.getId(), vote.voteNum, Integer::sum);
+                rsEventVoters.putIfAbsent(rsEvent.getId(), vote.userId);
+            }
+            voteEntities.add(VoteEntity.builder()
+                    .voteNum(vote.voteNum)
+                    .voteTime(vote.voteTime)
+                    .rsEventId(rsEvent.getId())
+                    .userId(vote.userId)
+                    .quarantined(vote.quarantined)
+                    .build());
+        }
+        if (voteEntities.isEmpty()) {
+            return Arrays.asList(results);
+        }
+
+        voteRepository.saveAll(voteEntities);
+        LocalDateTime now = LocalDateTime.now();
+        List<VoteOutboxEntity> outbox = new ArrayList<>(voteEntities.size());
+        for (VoteEntity voteEntity : voteEntities) {
+            outbox.add(VoteOutboxEntity.builder()
+                    .voteId(voteEntity.getId())
+                    .rsEventId(voteEntity.getRsEventId())
+                    .userId(voteEntity.getUserId())
+                    .voteNum(voteEntity.getVoteNum())
+                    .voteTime(voteEntity.getVoteTime())
+                    .quarantined(voteEntity.isQuarantined())
+                    .createdAt(now)
+                    .build());
+        }
+        voteOutboxRepository.saveAll(outbox);
+
+        rsEventDeltas.forEach((rsEventId, delta) -> {
+            voteCounterService.increment(rsEvents.get(rsEventId), rsEventVoters.get(rsEventId), delta);
+            changeFeed.publish(EntityChange.EntityType.RS_EVENT, rsEventId, EntityChange.ChangeType.VOTE, delta);
+        });
+        userDeltas.forEach((userId, delta) ->
+                changeFeed.publish(EntityChange.EntityType.USER, userId, EntityChange.ChangeType.VOTE, delta));
+        for (VoteEntity voteEntity : voteEntities) {
+            domainEventBus.publishAfterCommit(VoteCastEvent.builder()
+                    .rsEventId(voteEntity.getRsEventId())
+                    .userId(voteEntity.getUserId())
+                    .voteNum(voteEntity.getVoteNum())
+                    .voteTime(voteEntity.getVoteTime())
+                    .quarantined(voteEntity.isQuarantined())
+                    .build());
+        }
+        return Arrays.asList(results);
+    }
+
+    /**
+     * Spends budget with conditional decrements in the database rather than saving the loaded
+     * user, so a concurrent refill or a vote committed elsewhere is never overwritten by a stale
+     * value. A user's votes in the batch are tried as one decrement first, and one by one in
+     * arrival order only when the budget does not cover them all.
+     */
+    private void spendVotes(Integer userId, List<PendingVote> votes, List<Integer> indexes, VoteResult[] results) {
+        if (indexes.size() > 1) {
+            int total = indexes.stream().mapToInt(i -> votes.get(i).voteNum).sum();
+            if (userRepository.spendVotes(userId, total) == 1) {
+                indexes.forEach(i -> results[i] = VoteResult.ACCEPTED);
+                return;
+            }
+        }
+        for (int i : indexes) {
+            results[i] = userRepository.spendVotes(userId, votes.get(i).voteNum) == 1
+                    ? VoteResult.ACCEPTED : VoteResult.NOT_ENOUGH_VOTES;
+        }
+    }
+
+    private static class PendingVote {
+        private final Integer rsEventId;
+        private final Integer userId;
+        private final int voteNum;
+        private final LocalDateTime voteTime;
+        private final String clientAddress;
+        private final String endpoint;
+        private final CompletableFuture<VoteResult> result = new CompletableFuture<>();
+        private Boolean quarantined;
+
+        PendingVote(Integer rsEventId, Integer userId, int voteNum, LocalDateTime voteTime, String clientAddress,
+                    String endpoint) {
+            this.rsEventId = rsEventId;
+            this.userId = userId;
+            this.voteNum = voteNum;
+            this.voteTime = voteTime;
+            this.clientAddress = clientAddress;
+            this.endpoint = endpoint;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.thoughtworks.rslist.sketch;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Fixed-size frequency counter: depth rows of width counters, each key adds to one counter per
+ * row and the estimate is the smallest of them. Estimates never undercount; with width w they
+ * overcount by at most 2N/w with probability 1 - 2^-depth. Updates are lock-free.
+ */
+public class CountMinSketch {
+
+    private final int depth;
+    private final int mask;
+    private final AtomicIntegerArray counters;
+
+    public CountMinSketch(int width, int depth) {
+        if (Integer.bitCount(width) != 1) {
+            throw new IllegalArgumentException("width must be a power of two: " + width);
+        }
+        this.depth = depth;
+        this.mask = width - 1;
+        this.counters = new AtomicIntegerArray(width * depth);
+    }
+
+    public void add(long key, int count) {
+        long hash = Hashing.mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        for (int row = 0; row < depth; row++) {
+            counters.addAndGet(index(row, h1 + row * h2), count);
+        }
+    }
+
+    public int estimate(long key) {
+        long hash = Hashing.mix64(key);
+        int h1 = (int) hash;
+        int h2 = (int) (hash >>> 32);
+        int min = Integer.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            min = Math.min(min, counters.get(index(row, h1 + row * h2)));
+        }
+        return min;
+    }
+
+    public void clear() {
+        for (int i = 0; i < counters.length(); i++) {
+            counters.set(i, 0);
+        }
+    }
+
+    private int index(int row, int hash) {
+        return row * (mask + 1) + (hash & mask);
+    }
+}
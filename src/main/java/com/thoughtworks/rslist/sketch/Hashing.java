@@ -0,0 +1,20 @@
+package com.thoughtworks.rslist.sketch;
+
+final class Hashing {
+
+    private Hashing() {
+    }
+
+    /**
+     * MurmurHash3 fmix64 finalizer: a bijection that spreads every input bit over the whole word,
+     * so sequential ids hash as well as random ones.
+     */
+    static long mix64(long key) {
+        key ^= key >>> 33;
+        key *= 0xff51afd7ed558ccdL;
+        key ^= key >>> 33;
+        key *= 0xc4ceb9fe1a85ec53L;
+        key ^= key >>> 33;
+        return key;
+    }
+}
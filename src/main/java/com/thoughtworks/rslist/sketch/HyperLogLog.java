@@ -0,0 +1,127 @@
+package com.thoughtworks.rslist.sketch;
+
+import java.util.concurrent.atomic.AtomicIntegerArray;
+
+/**
+ * Distinct-count estimator in 2^precision one-byte registers, with a relative standard error of
+ * about 1.04 / sqrt(2^precision): 6.5% at precision 8 (256 bytes), 1.6% at precision 12 (4 KB).
+ * Sketches of the same precision merge losslessly, so per-bucket sketches can be combined into
+ * any window. Registers are packed four to an int and only ever raised with compare-and-set, so
+ * concurrent adds take no lock.
+ */
+public class HyperLogLog {
+
+    private final int precision;
+    private final AtomicIntegerArray words;
+
+    public HyperLogLog(int precision) {
+        if (precision < 4 || precision > 16) {
+            throw new IllegalArgumentException("precision must be between 4 and 16: " + precision);
+        }
+        this.precision = precision;
+        this.words = new AtomicIntegerArray((1 << precision) / 4);
+    }
+
+    public static HyperLogLog fromBytes(byte[] bytes) {
+        HyperLogLog hyperLogLog = new HyperLogLog(Integer.numberOfTrailingZeros(bytes.length));
+        for (int i = 0; i < bytes.length; i++) {
+            hyperLogLog.raise(i, bytes[i]);
+        }
+        return hyperLogLog;
+    }
+
+    public void add(long value) {
+        long hash = Hashing.mix64(value);
+        int index = (int) (hash >>> (64 - precision));
+        int rank = Math.min(Long.numberOfLeadingZeros(hash << precision), 64 - precision) + 1;
+        raise(index, rank);
+    }
+
+    public void merge(HyperLogLog other) {
+        if (other.precision != precision) {
+            throw new IllegalArgumentException("cannot merge precision " + other.precision + " into " + precision);
+        }
+        for (int i = 0; i < size(); i++) {
+            raise(i, other.register(i));
+        }
+    }
+
+    public long estimate() {
+        int m = size();
+        double sum = 0;
+        int zeros = 0;
+        for (int i = 0; i < m; i++) {
+            int register = register(i);
+            sum += 1.0 / (1L << register);
+            if (register == 0) {
+                zeros++;
+            }
+        }
+        double estimate = alpha(m) * m * m / sum;
+        if (estimate <= 2.5 * m && zeros > 0) {
+            estimate = m * Math.log((double) m / zeros);
+        }
+        return Math.round(estimate);
+    }
+
+    public double relativeError() {
+        return 1.04 / Math.sqrt(size());
+    }
+
+    public int getPrecision() {
+        return precision;
+    }
+
+    public byte[] toBytes() {
+        byte[] bytes = new byte[size()];
+        for (int i = 0; i < bytes.length; i++) {
+            bytes[i] = (byte) register(i);
+        }
+        return bytes;
+    }
+
+    /**
+     * Adds racing with a clear may survive it.
+     */
+    public void clear() {
+        for (int i = 0; i < words.length(); i++) {
+            words.set(i, 0);
+        }
+    }
+
+    private int size() {
+        return 1 << precision;
+    }
+
+    private int register(int index) {
+        return (words.get(index >>> 2) >>> ((index & 3) << 3)) & 0xFF;
+    }
+
+    private void raise(int index, int rank) {
+        int word = index >>> 2;
+        int shift = (index & 3) << 3;
+        while (true) {
+            int current = words.get(word);
+            if (((current >>> shift) & 0xFF) >= rank) {
+                return;
+            }
+            int updated = (current & ~(0xFF << shift)) | (rank << shift);
+            if (words.compareAndSet(word, current, updated)) {
+                return;
+            }
+        }
+    }
+
+    private static double alpha(int m) {
+        switch (m) {
+            case 16:
+                return 0.673;
+            case 32:
+                return 0.697;
+            case 64:
+                return 0.709;
+            default:
+                return 0.7213 / (1 + 1.079 / m);
+        }
+    }
+}
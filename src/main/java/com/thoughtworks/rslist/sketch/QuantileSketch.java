@@ -0,0 +1,106 @@
+package com.thoughtworks.rslist.sketch;
+
+import java.nio.ByteBuffer;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Quantile estimator with relative accuracy (DDSketch): positive values fall into logarithmic
+ * bins of ratio gamma = (1 + a) / (1 - a), so any quantile comes back within a relative error a
+ * of the true value. Bins are plain counts, which makes sketches with the same accuracy
+ * mergeable without loss. Zero and negative values share one bin.
+ */
+public class QuantileSketch {
+
+    private final double relativeAccuracy;
+    private final double logGamma;
+    private final TreeMap<Integer, Long> bins = new TreeMap<>();
+    private long zeroCount;
+    private long count;
+
+    public QuantileSketch(double relativeAccuracy) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relative accuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        this.relativeAccuracy = relativeAccuracy;
+        this.logGamma = Math.log((1 + relativeAccuracy) / (1 - relativeAccuracy));
+    }
+
+    public static QuantileSketch fromBytes(byte[] bytes) {
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        QuantileSketch sketch = new QuantileSketch(buffer.getDouble());
+        sketch.zeroCount = buffer.getLong();
+        sketch.count = sketch.zeroCount;
+        int size = buffer.getInt();
+        for (int i = 0; i < size; i++) {
+            int index = buffer.getInt();
+            long binCount = buffer.getLong();
+            sketch.bins.put(index, binCount);
+            sketch.count += binCount;
+        }
+        return sketch;
+    }
+
+    public synchronized void add(double value) {
+        if (value <= 0) {
+            zeroCount++;
+        } else {
+            bins.merge((int) Math.ceil(Math.log(value) / logGamma), 1L, Long::sum);
+        }
+        count++;
+    }
+
+    public void merge(QuantileSketch other) {
+        if (other.relativeAccuracy != relativeAccuracy) {
+            throw new IllegalArgumentException("cannot merge accuracy " + other.relativeAccuracy
+                    + " into " + relativeAccuracy);
+        }
+        QuantileSketch copy = fromBytes(other.toBytes());
+        synchronized (this) {
+            zeroCount += copy.zeroCount;
+            count += copy.count;
+            copy.bins.forEach((index, binCount) -> bins.merge(index, binCount, Long::sum));
+        }
+    }
+
+    /**
+     * Value at quantile q in [0, 1], or NaN when the sketch is empty.
+     */
+    public synchronized double quantile(double q) {
+        if (count == 0) {
+            return Double.NaN;
+        }
+        long rank = (long) Math.floor(q * (count - 1));
+        long seen = zeroCount;
+        if (rank < seen) {
+            return 0;
+        }
+        for (Map.Entry<Integer, Long> bin : bins.entrySet()) {
+            seen += bin.getValue();
+            if (rank < seen) {
+                return 2 * Math.exp(bin.getKey() * logGamma) / (1 + Math.exp(logGamma));
+            }
+        }
+        return 2 * Math.exp(bins.lastKey() * logGamma) / (1 + Math.exp(logGamma));
+    }
+
+    public synchronized long getCount() {
+        return count;
+    }
+
+    public double getRelativeAccuracy() {
+        return relativeAccuracy;
+    }
+
+    public synchronized byte[] toBytes() {
+        ByteBuffer buffer = ByteBuffer.allocate(8 + 8 + 4 + bins.size() * 12);
+        buffer.putDouble(relativeAccuracy);
+        buffer.putLong(zeroCount);
+        buffer.putInt(bins.size());
+        bins.forEach((index, binCount) -> {
+            buffer.putInt(index);
+            buffer.putLong(binCount);
+        });
+        return buffer.array();
+    }
+}
@@ -0,0 +1,198 @@
+package com.thoughtworks.rslist.validation;
+
+import com.thoughtworks.rslist.domain.FieldViolation;
+
+import javax.validation.Constraint;
+import javax.validation.constraints.Email;
+import javax.validation.constraints.Max;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.NotNull;
+import javax.validation.constraints.Pattern;
+import javax.validation.constraints.Size;
+import java.lang.annotation.Annotation;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Predicate;
+
+/**
+ * The bean-validation constraints on the fields of one class, read once and turned into plain
+ * predicates. Only the default group is checked, the same way {@code @Valid} does on a request
+ * body. A constraint this class does not know makes compilation fail rather than being skipped.
+ */
+public class CompiledValidator<T> {
+
+    private static final List<Class<? extends Annotation>> SUPPORTED = Arrays.asList(
+            NotNull.class, Size.class, Min.class, Max.class, Email.class, Pattern.class);
+    private static final List<Class<?>> INTEGRAL_TYPES = Arrays.asList(
+            int.class, long.class, short.class, byte.class, Integer.class, Long.class, Short.class, Byte.class);
+
+    private final Class<T> type;
+    private final Check[] checks;
+
+    private CompiledValidator(Class<T> type, List<Check> checks) {
+        this.type = type;
+        this.checks = checks.toArray(new Check[0]);
+    }
+
+    public static <T> CompiledValidator<T> compile(Class<T> type) {
+        List<Check> checks = new ArrayList<>();
+        for (Class<?> current = type; current != Object.class; current = current.getSuperclass()) {
+            for (Field field : current.getDeclaredFields()) {
+                if (Modifier.isStatic(field.getModifiers())) {
+                    continue;
+                }
+                for (Annotation annotation : field.getAnnotations()) {
+                    if (annotation.annotationType().isAnnotationPresent(Constraint.class)) {
+                        Check check = compile(field, annotation);
+                        if (check != null) {
+                            checks.add(check);
+                        }
+                    }
+                }
+            }
+        }
+        return new CompiledValidator<>(type, checks);
+    }
+
+    public Class<T> getType() {
+        return type;
+    }
+
+    /**
+     * Every broken constraint in field declaration order; an empty list when the bean is valid.
+     */
+    public List<FieldViolation> validate(T bean) {
+        List<FieldViolation> violations = Collections.emptyList();
+        for (Check check : checks) {
+            Object value = check.read(bean);
+            if (!check.predicate.test(value)) {
+                if (violations.isEmpty()) {
+                    violations = new ArrayList<>(2);
+                }
+                violations.add(new FieldViolation(check.field.getName(), check.constraint, check.message));
+            }
+        }
+        return violations;
+    }
+
+    private static Check compile(Field field, Annotation annotation) {
+        Class<? extends Annotation> annotationType = annotation.annotationType();
+        if (!SUPPORTED.contains(annotationType)) {
+            throw unsupported(field, annotation);
+        }
+        if (((Class<?>[]) attribute(annotation, "groups")).length > 0) {
+            return null;
+        }
+        Class<?> fieldType = field.getType();
+        Predicate<Object> predicate;
+        String message;
+        if (annotation instanceof NotNull) {
+            predicate = value -> value != null;
+            message = "must not be null";
+        } else if (annotation instanceof Size) {
+            Size size = (Size) annotation;
+            predicate = sizeBetween(field, annotation, size.min(), size.max());
+            message = "size must be between " + size.min() + " and " + size.max();
+        } else if (annotation instanceof Min) {
+            long min = ((Min) annotation).value();
+            requireIntegral(field, annotation);
+            predicate = value -> value == null || ((Number) value).longValue() >= min;
+            message = "must be greater than or equal to " + min;
+        } else if (annotation instanceof Max) {
+            long max = ((Max) annotation).value();
+            requireIntegral(field, annotation);
+            predicate = value -> value == null || ((Number) value).longValue() <= max;
+            message = "must be less than or equal to " + max;
+        } else if (annotation instanceof Email) {
+            Email email = (Email) annotation;
+            if (!CharSequence.class.isAssignableFrom(fieldType) || !".*".equals(email.regexp())) {
+                throw unsupported(field, annotation);
+            }
+            predicate = value -> EmailAddress.isValid((CharSequence) value);
+            message = "must be a well-formed email address";
+        } else {
+            Pattern pattern = (Pattern) annotation;
+            if (!CharSequence.class.isAssignableFrom(fieldType)) {
+                throw unsupported(field, annotation);
+            }
+            int flags = 0;
+            for (Pattern.Flag flag : pattern.flags()) {
+                flags |= flag.getValue();
+            }
+            java.util.regex.Pattern regex = java.util.regex.Pattern.compile(pattern.regexp(), flags);
+            predicate = value -> value == null || regex.matcher((CharSequence) value).matches();
+            message = "must match \"" + pattern.regexp() + "\"";
+        }
+        String template = (String) attribute(annotation, "message");
+        if (!template.startsWith("{javax.validation.constraints.")) {
+            message = template;
+        }
+        field.setAccessible(true);
+        return new Check(field, annotationType.getSimpleName(), message, predicate);
+    }
+
+    private static Predicate<Object> sizeBetween(Field field, Annotation annotation, int min, int max) {
+        Class<?> fieldType = field.getType();
+        if (CharSequence.class.isAssignableFrom(fieldType)) {
+            return value -> value == null || within(((CharSequence) value).length(), min, max);
+        }
+        if (Collection.class.isAssignableFrom(fieldType)) {
+            return value -> value == null || within(((Collection<?>) value).size(), min, max);
+        }
+        if (Map.class.isAssignableFrom(fieldType)) {
+            return value -> value == null || within(((Map<?, ?>) value).size(), min, max);
+        }
+        throw unsupported(field, annotation);
+    }
+
+    private static boolean within(int length, int min, int max) {
+        return length >= min && length <= max;
+    }
+
+    private static void requireIntegral(Field field, Annotation annotation) {
+        if (!INTEGRAL_TYPES.contains(field.getType())) {
+            throw unsupported(field, annotation);
+        }
+    }
+
+    private static Object attribute(Annotation annotation, String name) {
+        try {
+            return annotation.annotationType().getMethod(name).invoke(annotation);
+        } catch (ReflectiveOperationException e) {
+            throw new IllegalStateException(annotation + " has no " + name, e);
+        }
+    }
+
+    private static IllegalStateException unsupported(Field field, Annotation annotation) {
+        return new IllegalStateException("cannot compile " + annotation + " on "
+                + field.getDeclaringClass().getSimpleName() + "." + field.getName());
+    }
+
+    private static class Check {
+        private final Field field;
+        private final String constraint;
+        private final String message;
+        private final Predicate<Object> predicate;
+
+        Check(Field field, String constraint, String message, Predicate<Object> predicate) {
+            this.field = field;
+            this.constraint = constraint;
+            this.message = message;
+            this.predicate = predicate;
+        }
+
+        Object read(Object bean) {
+            try {
+                return field.get(bean);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("cannot read " + field, e);
+            }
+        }
+    }
+}
@@ -0,0 +1,73 @@
+package com.thoughtworks.rslist.validation;
+
+import com.thoughtworks.rslist.domain.FieldViolation;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.domain.Vote;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+import org.springframework.beans.factory.annotation.Value;
+import org.springframework.stereotype.Component;
+
+import javax.annotation.PostConstruct;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Validates request bodies against their bean-validation annotations without throwing. Rejected
+ * requests are counted, and at most one log line per rs.validation.log-interval-ms reports how
+ * many were rejected since the previous line together with the latest example, so a flood of
+ * bad requests costs a counter increment each instead of a stack trace and a log line each.
+ */
+@Component
+public class DomainValidator {
+
+    @Value("${rs.validation.log-interval-ms:10000}")
+    long logIntervalMillis;
+
+    private final ConcurrentMap<Class<?>, CompiledValidator<?>> validators = new ConcurrentHashMap<>();
+    private final LongAdder rejected = new LongAdder();
+    private final LongAdder rejectedSinceLog = new LongAdder();
+    private final AtomicLong nextLogAt = new AtomicLong();
+
+    Logger logger = LoggerFactory.getLogger(DomainValidator.class);
+
+    @PostConstruct
+    public void initialize() {
+        validatorFor(User.class);
+        validatorFor(RsEvent.class);
+        validatorFor(Vote.class);
+    }
+
+    @SuppressWarnings("unchecked")
+    public <T> List<FieldViolation> validate(T bean) {
+        return validatorFor((Class<T>) bean.getClass()).validate(bean);
+    }
+
+    /**
+     * Records a request turned away with the given error and logs it if the sampling interval
+     * has passed.
+     */
+    public void rejected(String error, List<FieldViolation> violations) {
+        rejected.increment();
+        rejectedSinceLog.increment();
+        long now = System.currentTimeMillis();
+        long next = nextLogAt.get();
+        if (now >= next && nextLogAt.compareAndSet(next, now + logIntervalMillis)) {
+            logger.warn(rejectedSinceLog.sumThenReset() + " request(s) rejected since last report, latest "
+                    + error + ": " + violations);
+        }
+    }
+
+    public long getRejected() {
+        return rejected.sum();
+    }
+
+    @SuppressWarnings("unchecked")
+    private <T> CompiledValidator<T> validatorFor(Class<T> type) {
+        return (CompiledValidator<T>) validators.computeIfAbsent(type, CompiledValidator::compile);
+    }
+}
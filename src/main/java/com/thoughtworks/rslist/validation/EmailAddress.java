@@ -0,0 +1,113 @@
+package com.thoughtworks.rslist.validation;
+
+import java.net.IDN;
+import java.util.regex.Pattern;
+
+/**
+ * The address check behind {@code @Email}, accepting exactly what Hibernate Validator accepts.
+ * The domain part is scanned by hand instead of with Hibernate's nested-quantifier label pattern,
+ * which backtracks exponentially on long labels that end in a bad character.
+ */
+final class EmailAddress {
+
+    private static final int MAX_LOCAL_PART_LENGTH = 64;
+    private static final int MAX_DOMAIN_PART_LENGTH = 255;
+
+    private static final String LOCAL_PART_ATOM = "[a-z0-9!#$%&'*+/=?^_`{|}~\u0080-\uFFFF-]";
+    private static final String LOCAL_PART_INSIDE_QUOTES_ATOM =
+            "([a-z0-9!#$%&'*.(),<>\\[\\]:;  @+/=?^_`{|}~\u0080-\uFFFF-]|\\\\\\\\|\\\\\\\")";
+    private static final String LOCAL_PART_WORD = "(" + LOCAL_PART_ATOM + "+|\"" + LOCAL_PART_INSIDE_QUOTES_ATOM + "+\")";
+    private static final Pattern LOCAL_PART = Pattern.compile(
+            LOCAL_PART_WORD + "(\\." + LOCAL_PART_WORD + ")*", Pattern.CASE_INSENSITIVE);
+
+    private static final String IP_V4 = "[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}\\.[0-9]{1,3}";
+    private static final String IP_V6 = "(?:(?:[0-9a-f]{1,4}:){7}[0-9a-f]{1,4}" +
+            "|(?:[0-9a-f]{1,4}:){1,7}:" +
+            "|(?:[0-9a-f]{1,4}:){1,6}:[0-9a-f]{1,4}" +
+            "|(?:[0-9a-f]{1,4}:){1,5}(?::[0-9a-f]{1,4}){1,2}" +
+            "|(?:[0-9a-f]{1,4}:){1,4}(?::[0-9a-f]{1,4}){1,3}" +
+            "|(?:[0-9a-f]{1,4}:){1,3}(?::[0-9a-f]{1,4}){1,4}" +
+            "|(?:[0-9a-f]{1,4}:){1,2}(?::[0-9a-f]{1,4}){1,5}" +
+            "|[0-9a-f]{1,4}:(?::[0-9a-f]{1,4}){1,6}" +
+            "|:(?:(?::[0-9a-f]{1,4}){1,7}|:))";
+    private static final Pattern IP_LITERAL = Pattern.compile(
+            "\\[" + IP_V4 + "\\]|\\[IPv6:" + IP_V6 + "\\]", Pattern.CASE_INSENSITIVE);
+
+    private static final boolean[] DOMAIN_CHARS = new boolean[128];
+
+    static {
+        for (char c = 'a'; c <= 'z'; c++) {
+            DOMAIN_CHARS[c] = true;
+            DOMAIN_CHARS[Character.toUpperCase(c)] = true;
+        }
+        for (char c = '0'; c <= '9'; c++) {
+            DOMAIN_CHARS[c] = true;
+        }
+        for (char c : "!#$%&'*+/=?^_`{|}~".toCharArray()) {
+            DOMAIN_CHARS[c] = true;
+        }
+    }
+
+    private EmailAddress() {
+    }
+
+    /**
+     * Null and empty values are valid, as with every other constraint but {@code @NotNull}.
+     */
+    static boolean isValid(CharSequence value) {
+        if (value == null || value.length() == 0) {
+            return true;
+        }
+        String address = value.toString();
+        int split = address.lastIndexOf('@');
+        if (split < 0) {
+            return false;
+        }
+        String localPart = address.substring(0, split);
+        if (localPart.length() > MAX_LOCAL_PART_LENGTH || !LOCAL_PART.matcher(localPart).matches()) {
+            return false;
+        }
+        return isValidDomain(address.substring(split + 1));
+    }
+
+    private static boolean isValidDomain(String domain) {
+        if (domain.endsWith(".") || !(isDomainName(domain) || IP_LITERAL.matcher(domain).matches())) {
+            return false;
+        }
+        try {
+            return IDN.toASCII(domain).length() <= MAX_DOMAIN_PART_LENGTH;
+        } catch (IllegalArgumentException e) {
+            return false;
+        }
+    }
+
+    /**
+     * Dot-separated labels of domain characters and dashes, each label starting and ending with
+     * a domain character. Code points from U+0080 to U+FFFF count as domain characters.
+     */
+    private static boolean isDomainName(String domain) {
+        int labelLength = 0;
+        int previous = '.';
+        for (int i = 0; i < domain.length(); ) {
+            int c = domain.codePointAt(i);
+            i += Character.charCount(c);
+            if (c == '.') {
+                if (labelLength == 0 || previous == '-') {
+                    return false;
+                }
+                labelLength = 0;
+            } else if (c == '-') {
+                if (labelLength == 0) {
+                    return false;
+                }
+                labelLength++;
+            } else if (c < 128 ? DOMAIN_CHARS[c] : c <= 0xFFFF) {
+                labelLength++;
+            } else {
+                return false;
+            }
+            previous = c;
+        }
+        return labelLength > 0 && previous != '-';
+    }
+}
@@ -7,6 +7,7 @@ import com.thoughtworks.rslist.domain.Vote;
 import com.thoughtworks.rslist.entity.RsEventEntitiy;
 import com.thoughtworks.rslist.entity.UserEntity;
 import com.thoughtworks.rslist.entity.VoteEntity;
+import com.thoughtworks.rslist.event.DomainEventBus;
 import com.thoughtworks.rslist.repository.RsEventRepository;
 import com.thoughtworks.rslist.repository.UserRepository;
 
@@ -21,6 +22,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.time.LocalDateTime;
 import java.util.Arrays;
@@ -46,6 +48,9 @@ class RsControllerTest {
     @Autowired
     private VoteRepository voteRepository;
 
+    @Autowired
+    private DomainEventBus domainEventBus;
+
     private ObjectMapper objectMapper = new ObjectMapper();
     private UserEntity userEntity;
     private List<RsEventEntitiy> rsEventEntitiys;
@@ -100,7 +105,10 @@ class RsControllerTest {
 
     @Test
     void should_get_rs_list() throws Exception {
-        mockMvc.perform(get("/rs"))
+        MvcResult result = mockMvc.perform(get("/rs"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(jsonPath("$[0].eventName").value(rsEventEntitiys.get(0).getEventName()))
                 .andExpect(jsonPath("$[0].keyword").value(rsEventEntitiys.get(0).getKeyword()))
                 .andExpect(jsonPath("$[0].id").value(rsEventEntitiys.get(0).getId()))
@@ -266,6 +274,28 @@ class RsControllerTest {
         assertEquals(oldRsEventVoteNum + 5, rsRepository.findById(rsEventEntitiy.getId()).get().getVoteNum());
     }
 
+    @Test
+    void should_get_distinct_voters_of_rs_event() throws Exception {
+        RsEventEntitiy rsEventEntitiy = rsEventEntitiys.get(1);
+        for (int voteNum : new int[]{2, 3}) {
+            mockMvc.perform(post("/rs/" + rsEventEntitiy.getId() + "/vote")
+                    .content(objectMapper.writeValueAsString(
+                            new Vote(voteNum, userEntity.getId(), LocalDateTime.now().toString())))
+                    .contentType(MediaType.APPLICATION_JSON))
+                    .andExpect(status().isCreated());
+        }
+        assertTrue(domainEventBus.awaitDrained(1000));
+
+        mockMvc.perform(get("/rs/" + rsEventEntitiy.getId() + "/stats?days=7"))
+                .andExpect(jsonPath("$.votes").value(5))
+                .andExpect(jsonPath("$.distinctVoters").value(1))
+                .andExpect(jsonPath("$.voteSizeQuantiles.max").isNumber())
+                .andExpect(status().isOk());
+        mockMvc.perform(get("/rs/0/stats"))
+                .andExpect(jsonPath("$.error").value("invalid id"))
+                .andExpect(status().isBadRequest());
+    }
+
     @Test
     void should_return_400_when_vote_too_much() throws Exception {
         Vote vote = new Vote(15, userEntity.getId(), LocalDateTime.now().toString());
@@ -296,7 +326,10 @@ class RsControllerTest {
         LocalDateTime start = LocalDateTime.of(2020, 10, 11, 10, 10);
         LocalDateTime end = LocalDateTime.of(2020, 11, 12, 11, 11);
 
-        mockMvc.perform(get("/vote?startTime=" + start.toString() + "&endTime=" + end.toString()))
+        MvcResult result = mockMvc.perform(get("/vote?startTime=" + start.toString() + "&endTime=" + end.toString()))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(jsonPath("$[0].voteNum").value(v2.getVoteNum()))
                 .andExpect(jsonPath("$[0].id").value(v2.getId()))
                 .andExpect(jsonPath("$.length()").value(1))
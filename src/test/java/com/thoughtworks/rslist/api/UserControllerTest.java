@@ -9,6 +9,7 @@ import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMock
 import org.springframework.boot.test.context.SpringBootTest;
 import org.springframework.http.MediaType;
 import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
 
 import java.util.List;
 
@@ -34,7 +35,10 @@ class UserControllerTest {
     @Test
     void should_get_user_list() throws Exception {
         UserEntity userEntity = saveOneUser();
-        mockMvc.perform(get("/user"))
+        MvcResult result = mockMvc.perform(get("/user"))
+                .andExpect(request().asyncStarted())
+                .andReturn();
+        mockMvc.perform(asyncDispatch(result))
                 .andExpect(jsonPath("$[0].user_name").value(userEntity.getName()))
                 .andExpect(jsonPath("$[0].user_age").value(userEntity.getAge()))
                 .andExpect(jsonPath("$[0].user_gender").value(userEntity.getGender()))
@@ -0,0 +1,174 @@
+package com.thoughtworks.rslist.event;
+
+import com.thoughtworks.rslist.domain.EventBusStats;
+import com.thoughtworks.rslist.domain.EventConsumerStats;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainEventBusTest {
+
+    private DomainEventBus bus;
+
+    @AfterEach
+    void clearUp() {
+        bus.stop();
+    }
+
+    @Test
+    void should_deliver_every_event_in_order_to_each_consumer() {
+        RecordingConsumer first = new RecordingConsumer(null);
+        RecordingConsumer second = new RecordingConsumer(null);
+        bus = start(Arrays.asList(first, second), 16, "block");
+
+        for (int id = 0; id < 100; id++) {
+            assertTrue(bus.publish(new RsEventUpdatedEvent(id)));
+        }
+        assertTrue(bus.awaitDrained(1000));
+
+        List<Integer> expected = new ArrayList<>();
+        for (int id = 0; id < 100; id++) {
+            expected.add(id);
+        }
+        assertEquals(expected, first.ids());
+        assertEquals(expected, second.ids());
+        EventBusStats stats = bus.getStats();
+        assertEquals(100, stats.getPublished());
+        assertEquals(0, stats.getDropped());
+        assertTrue(stats.getConsumers().stream().allMatch(consumer -> consumer.getLag() == 0));
+    }
+
+    @Test
+    void should_drop_and_report_lag_when_slowest_consumer_falls_behind() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingConsumer slow = new RecordingConsumer(release);
+        bus = start(Collections.singletonList(slow), 4, "drop");
+
+        assertTrue(bus.publish(new RsEventCreatedEvent(0, 1)));
+        assertTrue(slow.started.await(1, TimeUnit.SECONDS));
+        for (int id = 1; id <= 3; id++) {
+            assertTrue(bus.publish(new RsEventCreatedEvent(id, 1)));
+        }
+        assertFalse(bus.publish(new RsEventCreatedEvent(4, 1)));
+
+        EventConsumerStats consumer = bus.getStats().getConsumers().get(0);
+        assertEquals(4, consumer.getLag());
+        assertTrue(consumer.getLagMillis() >= 0);
+        assertEquals(1, bus.getStats().getDropped());
+
+        release.countDown();
+        assertTrue(bus.awaitDrained(1000));
+        assertEquals(Arrays.asList(0, 1, 2, 3), slow.ids());
+        assertTrue(bus.getStats().getConsumers().get(0).getMaxBatch() > 1);
+    }
+
+    @Test
+    void should_spill_lossless_events_to_overflow_instead_of_dropping_them() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        RecordingConsumer slow = new RecordingConsumer(release);
+        bus = start(Collections.singletonList(slow), 4, "drop");
+        assertTrue(bus.publish(new RsEventCreatedEvent(0, 1)));
+        assertTrue(slow.started.await(1, TimeUnit.SECONDS));
+        for (int id = 1; id <= 3; id++) {
+            assertTrue(bus.publish(new RsEventCreatedEvent(id, 1)));
+        }
+
+        assertTrue(bus.publish(VoteCastEvent.builder().rsEventId(4).userId(1).voteNum(1).build()));
+        assertFalse(bus.publish(new RsEventCreatedEvent(5, 1)));
+        assertTrue(bus.publish(VoteCastEvent.builder().rsEventId(6).userId(1).voteNum(1).build()));
+        assertEquals(2, bus.getStats().getOverflowed());
+        release.countDown();
+
+        assertTrue(bus.awaitDrained(1000));
+        assertEquals(Arrays.asList(0, 1, 2, 3, 4, 6), slow.ids());
+        assertEquals(0, bus.getStats().getOverflowed());
+        assertEquals(1, bus.getStats().getDropped());
+    }
+
+    @Test
+    void should_keep_delivering_after_consumer_failure() {
+        RecordingConsumer failing = new RecordingConsumer(null) {
+            @Override
+            public void onEvents(List<DomainEvent> events) {
+                super.onEvents(events);
+                if (idOf(events.get(0)) == 2) {
+                    throw new NoClassDefFoundError("boom");
+                }
+                throw new IllegalStateException("boom");
+            }
+        };
+        bus = start(Collections.singletonList(failing), 16, "block");
+
+        bus.publish(new RsEventDeletedEvent(1));
+        assertTrue(bus.awaitDrained(1000));
+        bus.publish(new RsEventDeletedEvent(2));
+        assertTrue(bus.awaitDrained(1000));
+        bus.publish(new RsEventDeletedEvent(3));
+        assertTrue(bus.awaitDrained(1000));
+
+        assertEquals(Arrays.asList(1, 2, 3), failing.ids());
+        assertEquals(3, bus.getStats().getConsumers().get(0).getFailures());
+    }
+
+    private static DomainEventBus start(List<DomainEventConsumer> consumers, int capacity, String backpressure) {
+        DomainEventBus bus = new DomainEventBus();
+        bus.consumers = consumers;
+        bus.capacity = capacity;
+        bus.maxBatch = 256;
+        bus.backpressure = backpressure;
+        bus.blockTimeoutMillis = 100;
+        bus.start();
+        return bus;
+    }
+
+    private static class RecordingConsumer implements DomainEventConsumer {
+        private final List<DomainEvent> received = Collections.synchronizedList(new ArrayList<>());
+        private final CountDownLatch release;
+        private final CountDownLatch started = new CountDownLatch(1);
+
+        RecordingConsumer(CountDownLatch release) {
+            this.release = release;
+        }
+
+        @Override
+        public void onEvents(List<DomainEvent> events) {
+            started.countDown();
+            if (release != null) {
+                try {
+                    release.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+            }
+            received.addAll(events);
+        }
+
+        List<Integer> ids() {
+            synchronized (received) {
+                return received.stream().map(RecordingConsumer::idOf).collect(Collectors.toList());
+            }
+        }
+
+        private static Integer idOf(DomainEvent event) {
+            if (event instanceof RsEventCreatedEvent) {
+                return ((RsEventCreatedEvent) event).getRsEventId();
+            }
+            if (event instanceof RsEventUpdatedEvent) {
+                return ((RsEventUpdatedEvent) event).getRsEventId();
+            }
+            if (event instanceof VoteCastEvent) {
+                return ((VoteCastEvent) event).getRsEventId();
+            }
+            return ((RsEventDeletedEvent) event).getRsEventId();
+        }
+    }
+}
@@ -0,0 +1,137 @@
+package com.thoughtworks.rslist.observability;
+
+import com.thoughtworks.rslist.domain.EndpointAllocation;
+import com.thoughtworks.rslist.domain.GcPauseStats;
+import com.thoughtworks.rslist.domain.HeapClassUsage;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.autoconfigure.web.servlet.AutoConfigureMockMvc;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.test.web.servlet.MockMvc;
+import org.springframework.test.web.servlet.MvcResult;
+
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.hamcrest.Matchers.hasItem;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.servlet.request.MockMvcRequestBuilders.*;
+import static org.springframework.test.web.servlet.result.MockMvcResultMatchers.*;
+
+@SpringBootTest
+@AutoConfigureMockMvc
+class HeapObservabilityTest {
+
+    @Autowired
+    MockMvc mockMvc;
+    @Autowired
+    AllocationTracker allocationTracker;
+    @Autowired
+    GcPauseMonitor gcPauseMonitor;
+    @Autowired
+    HeapHistogram heapHistogram;
+    @Autowired
+    UserRepository userRepository;
+
+    @AfterEach
+    void clear() {
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void should_attribute_allocation_to_endpoint_mappings() throws Exception {
+        UserEntity user = saveOneUser();
+        mockMvc.perform(get("/user/" + user.getId())).andExpect(status().isOk());
+        MvcResult result = mockMvc.perform(get("/user")).andExpect(request().asyncStarted()).andReturn();
+        mockMvc.perform(asyncDispatch(result)).andExpect(status().isOk());
+
+        EndpointAllocation one = allocation("GET /user/{id}").get();
+        assertTrue(one.getRequests() >= 1);
+        assertTrue(one.getBytesPerRequest() > 0);
+        EndpointAllocation list = allocation("GET /user").get();
+        assertTrue(list.getAllocatedBytes() > 0);
+        assertTrue(list.getRecentBytesPerSecond() > 0);
+        assertFalse(allocation("GET /user/" + user.getId()).isPresent());
+    }
+
+    @Test
+    void should_report_heap_and_gc_pauses() throws Exception {
+        System.gc();
+        long deadline = System.currentTimeMillis() + 5000;
+        while (gcPauseMonitor.getStats().isEmpty() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(20);
+        }
+        assertFalse(gcPauseMonitor.getStats().isEmpty());
+        for (GcPauseStats stats : gcPauseMonitor.getStats()) {
+            assertEquals(stats.getCount(), stats.getHistogram().values().stream().mapToLong(Long::longValue).sum());
+        }
+
+        mockMvc.perform(get("/admin/heap"))
+                .andExpect(status().isOk())
+                .andExpect(jsonPath("$.heapUsed").isNumber())
+                .andExpect(jsonPath("$.allocationTracking").value(true))
+                .andExpect(jsonPath("$.gcPauses[0].histogram").isMap());
+    }
+
+    @Test
+    void should_take_histogram_of_application_classes_on_request() throws Exception {
+        List<UserEntity> users = IntStream.range(0, 1000)
+                .mapToObj(i -> UserEntity.builder().name("user" + i).build())
+                .collect(Collectors.toList());
+        heapHistogram.minIntervalMillis = 0;
+        try {
+            mockMvc.perform(get("/admin/heap").param("histogram", "true"))
+                    .andExpect(status().isOk())
+                    .andExpect(jsonPath("$.histogramTakenAt").isNotEmpty())
+                    .andExpect(jsonPath("$.histogram[0].className").value(startsWith("com.thoughtworks.rslist.")))
+                    .andExpect(jsonPath("$.histogram[*].className")
+                            .value(hasItem("com.thoughtworks.rslist.entity.UserEntity")));
+        } finally {
+            heapHistogram.minIntervalMillis = 60000;
+        }
+        assertEquals(1000, users.size());
+    }
+
+    @Test
+    void should_parse_class_histogram_and_fold_hibernate_proxies() {
+        String output = "12345:\n"
+                + " num     #instances         #bytes  class name (module)\n"
+                + "-------------------------------------------------------\n"
+                + "   1:         20000         960000  [B (java.base@17)\n"
+                + "   2:           300          14400  com.thoughtworks.rslist.entity.UserEntity\n"
+                + "   3:           100           4800  com.thoughtworks.rslist.entity.UserEntity$HibernateProxy$aBcD\n"
+                + "   4:           500          40000  com.thoughtworks.rslist.entity.VoteEntity\n"
+                + "   5:             1             16  com.thoughtworks.rslist.api.UserController\n"
+                + "Total         20901        1019216\n";
+
+        List<HeapClassUsage> classes = HeapHistogram.parse(output, "com.thoughtworks.rslist.entity.", 50);
+
+        assertEquals(2, classes.size());
+        assertEquals(new HeapClassUsage("com.thoughtworks.rslist.entity.VoteEntity", 500, 40000), classes.get(0));
+        assertEquals(new HeapClassUsage("com.thoughtworks.rslist.entity.UserEntity", 400, 19200), classes.get(1));
+        assertEquals(1, HeapHistogram.parse(output, "com.thoughtworks.rslist.", 1).size());
+    }
+
+    private Optional<EndpointAllocation> allocation(String endpoint) {
+        return allocationTracker.getAllocations().stream()
+                .filter(allocation -> allocation.getEndpoint().equals(endpoint))
+                .findFirst();
+    }
+
+    private UserEntity saveOneUser() {
+        return userRepository.save(UserEntity.builder()
+                .name("xiaowang")
+                .age(19)
+                .gender("female")
+                .email("a@thoughtworks.com")
+                .phone("18888888888")
+                .voteNum(10)
+                .build());
+    }
+}
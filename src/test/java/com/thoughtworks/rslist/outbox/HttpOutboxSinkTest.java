@@ -0,0 +1,62 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.thoughtworks.rslist.domain.OutboxVote;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.boot.web.client.RestTemplateBuilder;
+import org.springframework.http.HttpMethod;
+import org.springframework.http.MediaType;
+import org.springframework.test.web.client.MockRestServiceServer;
+import org.springframework.web.client.HttpServerErrorException;
+
+import java.time.LocalDateTime;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.springframework.test.web.client.match.MockRestRequestMatchers.*;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withServerError;
+import static org.springframework.test.web.client.response.MockRestResponseCreators.withSuccess;
+
+class HttpOutboxSinkTest {
+
+    private HttpOutboxSink sink;
+    private MockRestServiceServer server;
+    private List<OutboxVote> votes;
+
+    @BeforeEach
+    void setUp() {
+        sink = new HttpOutboxSink();
+        sink.restTemplateBuilder = new RestTemplateBuilder();
+        sink.url = "http://downstream.local/votes";
+        sink.timeoutMillis = 1000;
+        sink.init();
+        server = MockRestServiceServer.bindTo(sink.restTemplate).build();
+        votes = Arrays.asList(
+                OutboxVote.builder().sequence(1).voteId(10).rsEventId(2).userId(3).voteNum(4)
+                        .voteTime(LocalDateTime.now()).createdAt(LocalDateTime.now()).build(),
+                OutboxVote.builder().sequence(2).voteId(11).rsEventId(2).userId(5).voteNum(1)
+                        .voteTime(LocalDateTime.now()).createdAt(LocalDateTime.now()).build());
+    }
+
+    @Test
+    void should_post_batch_as_json_array() {
+        server.expect(requestTo(sink.url))
+                .andExpect(method(HttpMethod.POST))
+                .andExpect(content().contentTypeCompatibleWith(MediaType.APPLICATION_JSON))
+                .andExpect(jsonPath("$.length()").value(2))
+                .andExpect(jsonPath("$[1].sequence").value(2))
+                .andRespond(withSuccess());
+
+        sink.deliver(votes);
+
+        server.verify();
+    }
+
+    @Test
+    void should_fail_batch_on_server_error() {
+        server.expect(requestTo(sink.url)).andRespond(withServerError());
+
+        assertThrows(HttpServerErrorException.class, () -> sink.deliver(votes));
+    }
+}
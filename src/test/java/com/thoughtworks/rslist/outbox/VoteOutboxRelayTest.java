@@ -0,0 +1,230 @@
+package com.thoughtworks.rslist.outbox;
+
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.thoughtworks.rslist.domain.OutboxVote;
+import com.thoughtworks.rslist.entity.OutboxCursorEntity;
+import com.thoughtworks.rslist.entity.VoteOutboxEntity;
+import com.thoughtworks.rslist.repository.OutboxCursorRepository;
+import com.thoughtworks.rslist.repository.VoteOutboxRepository;
+import com.thoughtworks.rslist.service.ChangeFeed;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class VoteOutboxRelayTest {
+
+    @Autowired
+    VoteOutboxRelay relay;
+
+    @Autowired
+    VoteOutboxRepository outboxRepository;
+
+    @Autowired
+    OutboxCursorRepository cursorRepository;
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    ObjectMapper objectMapper;
+
+    private OutboxSink originalSink;
+    private FileOutboxSink fileSink;
+
+    @BeforeEach
+    void setUp() {
+        fileSink = new FileOutboxSink();
+        fileSink.objectMapper = objectMapper;
+        fileSink.path = "build/tmp/outbox-test/votes-" + System.nanoTime() + ".jsonl";
+        originalSink = relay.sink;
+        relay.lingerMillis = 0;
+        OutboxCursorEntity cursor = cursorRepository.findById("vote")
+                .orElseGet(() -> OutboxCursorEntity.builder().name("vote").build());
+        cursor.setOwner(changeFeed.getNodeId());
+        cursor.setLeaseUntil(LocalDateTime.now().plusHours(1));
+        cursorRepository.save(cursor);
+        relayQuietly();
+        relay.sink = fileSink;
+    }
+
+    @AfterEach
+    void clearUp() {
+        relay.sink = originalSink;
+        relay.lingerMillis = 200;
+        relay.batchSize = 5000;
+        new File(fileSink.path).delete();
+    }
+
+    @Test
+    void should_relay_votes_in_id_order_and_remove_delivered_rows() throws Exception {
+        List<Long> ids = insert(3, LocalDateTime.now().minusMinutes(1));
+
+        List<OutboxVote> delivered = relayUntil(ids);
+
+        assertEquals(ids, delivered.stream().map(OutboxVote::getSequence).collect(Collectors.toList()));
+        assertEquals(7, delivered.get(0).getRsEventId());
+        assertTrue(relay.getPosition() >= ids.get(2));
+        ids.forEach(id -> assertFalse(outboxRepository.existsById(id)));
+    }
+
+    @Test
+    void should_hold_partial_batch_until_linger_expires() throws Exception {
+        relay.lingerMillis = 60_000;
+        List<Long> ids = insert(1, LocalDateTime.now());
+
+        relay.relay();
+        assertTrue(read().isEmpty());
+        assertTrue(outboxRepository.existsById(ids.get(0)));
+
+        relay.lingerMillis = 0;
+        assertEquals(ids.get(0), relayUntil(ids).get(0).getSequence());
+    }
+
+    @Test
+    void should_redeliver_batch_after_sink_failure() throws Exception {
+        AtomicBoolean failed = new AtomicBoolean();
+        relay.sink = votes -> {
+            if (failed.compareAndSet(false, true)) {
+                throw new IOException("sink down");
+            }
+            fileSink.deliver(votes);
+        };
+        List<Long> ids = insert(2, LocalDateTime.now().minusMinutes(1));
+
+        List<OutboxVote> delivered = relayUntil(ids);
+
+        assertTrue(failed.get());
+        assertEquals(ids, delivered.stream().map(OutboxVote::getSequence).collect(Collectors.toList()));
+    }
+
+    @Test
+    void should_deliver_rows_that_commit_behind_the_position() throws Exception {
+        List<Long> ids = insert(2, LocalDateTime.now().minusMinutes(1));
+        OutboxCursorEntity cursor = cursorRepository.findById("vote").get();
+        cursor.setOwner("another node");
+        cursorRepository.save(cursor);
+        assertEquals(0, relay.relay());
+        cursor.setOwner(changeFeed.getNodeId());
+        cursor.setPosition(ids.get(1));
+        cursorRepository.save(cursor);
+
+        List<OutboxVote> delivered = relayUntil(ids);
+
+        assertEquals(ids, delivered.stream().map(OutboxVote::getSequence).collect(Collectors.toList()));
+        ids.forEach(id -> assertFalse(outboxRepository.existsById(id)));
+        assertEquals(ids.get(1), relay.getPosition());
+    }
+
+    @Test
+    void should_renew_lease_with_every_batch() throws Exception {
+        relay.batchSize = 2;
+        List<LocalDateTime> leases = Collections.synchronizedList(new ArrayList<>());
+        relay.sink = votes -> {
+            OutboxCursorEntity cursor = cursorRepository.findById("vote").get();
+            leases.add(cursor.getLeaseUntil());
+            cursor.setLeaseUntil(LocalDateTime.now().minusSeconds(1));
+            cursorRepository.save(cursor);
+            fileSink.deliver(votes);
+        };
+        List<Long> ids = insert(4, LocalDateTime.now().minusMinutes(1));
+
+        List<OutboxVote> delivered = relayUntil(ids);
+
+        assertEquals(ids, delivered.stream().map(OutboxVote::getSequence).collect(Collectors.toList()));
+        assertEquals(2, leases.size());
+        assertTrue(leases.get(1).isAfter(LocalDateTime.now()));
+        assertTrue(cursorRepository.findById("vote").get().getLeaseUntil().isAfter(LocalDateTime.now()));
+    }
+
+    @Test
+    void should_cap_merged_read_at_batch_size() throws Exception {
+        List<Long> ids = insert(4, LocalDateTime.now().minusMinutes(1));
+        OutboxCursorEntity cursor = cursorRepository.findById("vote").get();
+        cursor.setOwner("another node");
+        cursorRepository.save(cursor);
+        assertEquals(0, relay.relay());
+        cursor.setOwner(changeFeed.getNodeId());
+        cursor.setPosition(ids.get(1));
+        cursorRepository.save(cursor);
+        relay.batchSize = 2;
+        List<Integer> batchSizes = Collections.synchronizedList(new ArrayList<>());
+        relay.sink = votes -> {
+            batchSizes.add(votes.size());
+            fileSink.deliver(votes);
+        };
+
+        List<OutboxVote> delivered = relayUntil(ids);
+
+        assertEquals(ids, delivered.stream().map(OutboxVote::getSequence).collect(Collectors.toList()));
+        assertTrue(batchSizes.stream().allMatch(size -> size <= 2), batchSizes.toString());
+    }
+
+    private void relayQuietly() {
+        try {
+            relay.relay();
+        } catch (Exception ignored) {
+        }
+    }
+
+    private List<Long> insert(int count, LocalDateTime createdAt) {
+        List<VoteOutboxEntity> rows = new ArrayList<>();
+        for (int i = 0; i < count; i++) {
+            rows.add(VoteOutboxEntity.builder()
+                    .voteId(100 + i)
+                    .rsEventId(7)
+                    .userId(3)
+                    .voteNum(1 + i)
+                    .voteTime(LocalDateTime.of(2020, 10, 10, 10, 10))
+                    .createdAt(createdAt)
+                    .build());
+        }
+        List<Long> ids = new ArrayList<>();
+        outboxRepository.saveAll(rows).forEach(row -> ids.add(row.getId()));
+        return ids;
+    }
+
+    private List<OutboxVote> relayUntil(List<Long> ids) throws Exception {
+        long deadline = System.currentTimeMillis() + 5000;
+        List<OutboxVote> delivered = read(ids);
+        while (delivered.size() < ids.size() && System.currentTimeMillis() < deadline) {
+            try {
+                relay.relay();
+            } catch (IOException e) {
+                Thread.sleep(10);
+            }
+            delivered = read(ids);
+        }
+        return delivered;
+    }
+
+    private List<OutboxVote> read(List<Long> ids) throws IOException {
+        return read().stream().filter(vote -> ids.contains(vote.getSequence())).collect(Collectors.toList());
+    }
+
+    private List<OutboxVote> read() throws IOException {
+        File file = new File(fileSink.path);
+        if (!file.exists()) {
+            return new ArrayList<>();
+        }
+        List<OutboxVote> votes = new ArrayList<>();
+        for (String line : Files.readAllLines(file.toPath())) {
+            votes.add(objectMapper.readValue(line, OutboxVote.class));
+        }
+        return votes;
+    }
+}
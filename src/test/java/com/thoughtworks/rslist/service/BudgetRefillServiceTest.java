@@ -0,0 +1,116 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.entity.BudgetRefillRunEntity;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.repository.BudgetRefillRunRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDate;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = {"rs.budget.chunk-size=3", "rs.budget.pause-millis=0", "rs.budget.cron=-"})
+class BudgetRefillServiceTest {
+
+    @Autowired
+    BudgetRefillService budgetRefillService;
+
+    @Autowired
+    BudgetRefillRunRepository runRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    private BudgetRefillProperties.Policy standard;
+    private List<UserEntity> users;
+
+    @BeforeEach
+    void setUp() {
+        standard = new BudgetRefillProperties.Policy();
+        standard.setTier("standard");
+        standard.setBudget(10);
+        users = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            users.add(userRepository.save(UserEntity.builder()
+                    .name("user" + i)
+                    .age(20)
+                    .gender("male")
+                    .email("123@qq.com")
+                    .phone("12345678901")
+                    .voteNum(i)
+                    .tier(i == 9 ? "premium" : "standard")
+                    .build()));
+        }
+    }
+
+    @AfterEach
+    void clearUp() {
+        userRepository.deleteAll();
+        runRepository.deleteAll();
+    }
+
+    @Test
+    void should_refill_tier_in_chunks_once_per_period() {
+        BudgetRefillRunEntity run = budgetRefillService.refill(standard, LocalDate.now());
+
+        assertEquals(BudgetRefillRunEntity.DONE, run.getStatus());
+        assertEquals(9, run.getRowsUpdated());
+        assertEquals(4, run.getChunks());
+        for (UserEntity user : userRepository.findAll()) {
+            assertEquals("premium".equals(user.getTier()) ? 9 : 10, user.getVoteNum());
+        }
+
+        UserEntity spent = users.get(0);
+        spent.setVoteNum(0);
+        userRepository.save(spent);
+        budgetRefillService.refill(standard, LocalDate.now());
+        assertEquals(0, userRepository.findById(spent.getId()).get().getVoteNum());
+    }
+
+    @Test
+    void should_resume_interrupted_run_from_checkpoint() {
+        runRepository.save(BudgetRefillRunEntity.builder()
+                .tier("standard")
+                .periodStart(LocalDate.now())
+                .budget(10)
+                .status(BudgetRefillRunEntity.RUNNING)
+                .lastUserId(users.get(4).getId())
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        BudgetRefillRunEntity run = budgetRefillService.refill(standard, LocalDate.now());
+
+        assertEquals(BudgetRefillRunEntity.DONE, run.getStatus());
+        assertEquals(4, run.getRowsUpdated());
+        assertEquals(0, userRepository.findById(users.get(0).getId()).get().getVoteNum());
+        assertEquals(10, userRepository.findById(users.get(5).getId()).get().getVoteNum());
+    }
+
+    @Test
+    void should_leave_run_leased_by_another_node_alone() {
+        runRepository.save(BudgetRefillRunEntity.builder()
+                .tier("standard")
+                .periodStart(LocalDate.now())
+                .budget(10)
+                .status(BudgetRefillRunEntity.RUNNING)
+                .lastUserId(0)
+                .owner("another node")
+                .leaseUntil(LocalDateTime.now().plusMinutes(1))
+                .startedAt(LocalDateTime.now())
+                .build());
+
+        BudgetRefillRunEntity run = budgetRefillService.refill(standard, LocalDate.now());
+
+        assertEquals(BudgetRefillRunEntity.RUNNING, run.getStatus());
+        assertEquals(0, run.getRowsUpdated());
+        assertEquals(0, userRepository.findById(users.get(0).getId()).get().getVoteNum());
+    }
+}
@@ -0,0 +1,101 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.EntityChange;
+import com.thoughtworks.rslist.entity.ChangeFeedEntity;
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.repository.ChangeFeedRepository;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.time.LocalDateTime;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class ChangeFeedTest {
+
+    @Autowired
+    ChangeFeed changeFeed;
+
+    @Autowired
+    ChangeFeedRepository changeFeedRepository;
+
+    @Autowired
+    RsEventSnapshot rsEventSnapshot;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+
+    private RsEventEntitiy rsEventEntitiy;
+
+    @BeforeEach
+    void setUp() {
+        UserEntity userEntity = userRepository.save(UserEntity.builder()
+                .name("Tom")
+                .age(20)
+                .gender("male")
+                .email("123@qq.com")
+                .phone("12345678901")
+                .voteNum(10)
+                .build());
+        rsEventEntitiy = rsEventRepository.save(RsEventEntitiy.builder()
+                .eventName("event name")
+                .keyword("keyword")
+                .userId(userEntity.getId())
+                .voteNum(5)
+                .build());
+    }
+
+    @AfterEach
+    void clearUp() {
+        changeFeedRepository.deleteAll();
+        userRepository.deleteAll();
+        rsEventRepository.deleteAll();
+    }
+
+    @Test
+    void should_apply_vote_delta_from_other_node() {
+        changeFeedRepository.save(ChangeFeedEntity.builder()
+                .nodeId("other-node")
+                .entityType(EntityChange.EntityType.RS_EVENT)
+                .entityId(rsEventEntitiy.getId())
+                .changeType(EntityChange.ChangeType.VOTE)
+                .voteDelta(3)
+                .createdAt(LocalDateTime.now())
+                .build());
+        changeFeed.poll();
+
+        assertEquals(8, rsEventSnapshot.get(rsEventEntitiy.getId()).get().getVoteNum());
+    }
+
+    @Test
+    void should_not_deliver_own_change_back() {
+        changeFeed.publish(EntityChange.EntityType.RS_EVENT, rsEventEntitiy.getId(), EntityChange.ChangeType.VOTE, 2);
+        changeFeed.poll();
+
+        assertEquals(5, rsEventSnapshot.get(rsEventEntitiy.getId()).get().getVoteNum());
+    }
+
+    @Test
+    void should_remove_rs_event_deleted_on_other_node() {
+        changeFeedRepository.save(ChangeFeedEntity.builder()
+                .nodeId("other-node")
+                .entityType(EntityChange.EntityType.RS_EVENT)
+                .entityId(rsEventEntitiy.getId())
+                .changeType(EntityChange.ChangeType.DELETE)
+                .createdAt(LocalDateTime.now())
+                .build());
+        changeFeed.poll();
+
+        assertFalse(rsEventSnapshot.get(rsEventEntitiy.getId()).isPresent());
+    }
+}
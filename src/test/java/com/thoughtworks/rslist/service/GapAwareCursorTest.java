@@ -0,0 +1,66 @@
+package com.thoughtworks.rslist.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class GapAwareCursorTest {
+
+    @Test
+    void should_advance_over_contiguous_ids_and_ignore_replays() {
+        GapAwareCursor cursor = new GapAwareCursor(10, 1000);
+
+        assertTrue(cursor.offer(11, 0));
+        assertTrue(cursor.offer(12, 0));
+        assertFalse(cursor.offer(12, 0));
+        cursor.advance(0);
+
+        assertEquals(12, cursor.getPosition());
+        assertFalse(cursor.offer(11, 0));
+    }
+
+    @Test
+    void should_wait_for_late_commit_inside_gap() {
+        GapAwareCursor cursor = new GapAwareCursor(0, 1000);
+
+        assertTrue(cursor.offer(1, 0));
+        assertTrue(cursor.offer(3, 0));
+        cursor.advance(0);
+        assertEquals(1, cursor.getPosition());
+        assertTrue(cursor.getGaps().contains(2L));
+
+        assertTrue(cursor.offer(2, 500));
+        cursor.advance(500);
+        assertEquals(3, cursor.getPosition());
+        assertTrue(cursor.getGaps().isEmpty());
+    }
+
+    @Test
+    void should_skip_gap_after_timeout() {
+        GapAwareCursor cursor = new GapAwareCursor(0, 1000);
+
+        cursor.offer(2, 0);
+        cursor.advance(999);
+        assertEquals(0, cursor.getPosition());
+
+        cursor.advance(1000);
+        assertEquals(2, cursor.getPosition());
+    }
+
+    @Test
+    void should_report_jump_too_wide_to_track() {
+        AtomicInteger untracked = new AtomicInteger();
+        GapAwareCursor cursor = new GapAwareCursor(0, 1000, untracked::incrementAndGet);
+
+        cursor.offer(10_000, 0);
+        assertEquals(0, untracked.get());
+        assertTrue(cursor.getGaps().contains(9_999L));
+        cursor.offer(20_002, 0);
+
+        assertEquals(1, untracked.get());
+        assertFalse(cursor.getGaps().contains(10_001L));
+        assertEquals(20_002, cursor.getHighest());
+    }
+}
@@ -0,0 +1,177 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.EntityChange;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.JdbcTemplate;
+import org.springframework.jdbc.core.RowCallbackHandler;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class RsEventSnapshotTest {
+
+    @Autowired
+    RsEventSnapshot rsEventSnapshot;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+
+    private UserEntity userEntity;
+
+    @BeforeEach
+    void setUp() {
+        userEntity = userRepository.save(UserEntity.builder()
+                .name("Tom")
+                .age(20)
+                .gender("male")
+                .email("123@qq.com")
+                .phone("12345678901")
+                .voteNum(10)
+                .build());
+    }
+
+    @AfterEach
+    void clearUp() {
+        userRepository.deleteAll();
+        rsEventRepository.deleteAll();
+    }
+
+    @Test
+    void should_follow_saves_updates_and_deletes() {
+        RsEventEntitiy entitiy = saveRsEvent("event 1", "sports");
+        assertEquals("event 1", rsEventSnapshot.get(entitiy.getId()).get().getEventName());
+
+        entitiy.setEventName("event 1 updated");
+        rsEventRepository.save(entitiy);
+        assertEquals("event 1 updated", rsEventSnapshot.get(entitiy.getId()).get().getEventName());
+
+        rsEventRepository.deleteById(entitiy.getId());
+        assertFalse(rsEventSnapshot.get(entitiy.getId()).isPresent());
+    }
+
+    @Test
+    void should_select_by_keyword_in_id_order() {
+        RsEventEntitiy first = saveRsEvent("event 1", "sports");
+        saveRsEvent("event 2", "music");
+        RsEventEntitiy third = saveRsEvent("event 3", "sports");
+
+        List<RsEvent> selected = toList(rsEventSnapshot.select("sports", userEntity.getId()));
+
+        assertEquals(2, selected.size());
+        assertEquals(first.getId(), selected.get(0).getId());
+        assertEquals(third.getId(), selected.get(1).getId());
+        assertFalse(rsEventSnapshot.select("unknown", null).hasNext());
+    }
+
+    @Test
+    void should_match_database_after_rebuild() {
+        RsEventEntitiy entitiy = saveRsEvent("event 1", "sports");
+        rsEventSnapshot.addVoteNum(entitiy.getId(), 100);
+
+        rsEventSnapshot.rebuild();
+
+        assertEquals(0, rsEventSnapshot.get(entitiy.getId()).get().getVoteNum());
+    }
+
+    @Test
+    void should_keep_changes_made_while_rebuilding() {
+        RsEventEntitiy renamed = saveRsEvent("event 1", "sports");
+        RsEventEntitiy voted = saveRsEvent("event 2", "sports");
+        RsEventEntitiy deleted = saveRsEvent("event 3", "sports");
+        JdbcTemplate jdbcTemplate = rsEventSnapshot.jdbcTemplate;
+        rsEventSnapshot.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                super.query(sql, handler);
+                renamed.setEventName("event 1 renamed");
+                rsEventRepository.save(renamed);
+                update("UPDATE rs_event SET vote_num = 7 WHERE id = ?", voted.getId());
+                rsEventSnapshot.addVoteNum(voted.getId(), 7);
+                rsEventRepository.deleteById(deleted.getId());
+            }
+        };
+        try {
+            rsEventSnapshot.rebuild();
+        } finally {
+            rsEventSnapshot.jdbcTemplate = jdbcTemplate;
+        }
+
+        assertEquals("event 1 renamed", rsEventSnapshot.get(renamed.getId()).get().getEventName());
+        assertEquals(7, rsEventSnapshot.get(voted.getId()).get().getVoteNum());
+        assertFalse(rsEventSnapshot.get(deleted.getId()).isPresent());
+    }
+
+    @Test
+    void should_keep_snapshot_vote_count_when_reloading_an_updated_event() {
+        RsEventEntitiy entitiy = saveRsEvent("event 1", "sports");
+        rsEventSnapshot.addVoteNum(entitiy.getId(), 5);
+        rsEventSnapshot.jdbcTemplate.update("UPDATE rs_event SET event_name = 'event 1 renamed' WHERE id = ?", entitiy.getId());
+
+        rsEventSnapshot.onChange(EntityChange.builder()
+                .entityType(EntityChange.EntityType.RS_EVENT)
+                .entityId(entitiy.getId())
+                .changeType(EntityChange.ChangeType.UPDATE)
+                .build());
+
+        RsEvent reloaded = rsEventSnapshot.get(entitiy.getId()).get();
+        assertEquals("event 1 renamed", reloaded.getEventName());
+        assertEquals(5, reloaded.getVoteNum());
+    }
+
+    @Test
+    void should_not_refresh_vote_count_of_events_voted_while_re_reading() {
+        RsEventEntitiy entitiy = saveRsEvent("event 1", "sports");
+        JdbcTemplate jdbcTemplate = rsEventSnapshot.jdbcTemplate;
+        rsEventSnapshot.jdbcTemplate = new JdbcTemplate(jdbcTemplate.getDataSource()) {
+            @Override
+            public void query(String sql, RowCallbackHandler handler) {
+                super.query(sql, handler);
+                rsEventSnapshot.addVoteNum(entitiy.getId(), 0);
+            }
+
+            @Override
+            public void query(String sql, RowCallbackHandler handler, Object... args) {
+                super.query(sql, handler, args);
+                rsEventSnapshot.addVoteNum(entitiy.getId(), 3);
+            }
+        };
+        try {
+            rsEventSnapshot.rebuild();
+        } finally {
+            rsEventSnapshot.jdbcTemplate = jdbcTemplate;
+        }
+
+        assertEquals(3, rsEventSnapshot.get(entitiy.getId()).get().getVoteNum());
+    }
+
+    private RsEventEntitiy saveRsEvent(String eventName, String keyword) {
+        return rsEventRepository.save(RsEventEntitiy.builder()
+                .eventName(eventName)
+                .keyword(keyword)
+                .userId(userEntity.getId())
+                .voteNum(0)
+                .build());
+    }
+
+    private static List<RsEvent> toList(Iterator<RsEvent> iterator) {
+        List<RsEvent> list = new ArrayList<>();
+        iterator.forEachRemaining(list::add);
+        return list;
+    }
+}
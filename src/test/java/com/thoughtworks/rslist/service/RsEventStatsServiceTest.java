@@ -0,0 +1,98 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.RsEventStats;
+import com.thoughtworks.rslist.repository.RsEventStatsRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDate;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest(properties = "rs.stats.flush-interval-ms=600000")
+class RsEventStatsServiceTest {
+
+    @Autowired
+    RsEventStatsService statsService;
+
+    @Autowired
+    RsEventStatsRepository statsRepository;
+
+    @AfterEach
+    void clearUp() {
+        statsService.flush();
+        statsRepository.deleteAll();
+    }
+
+    @Test
+    void should_merge_flushed_and_pending_day_buckets() {
+        LocalDate today = LocalDate.now();
+        for (int user = 0; user < 300; user++) {
+            statsService.record(1, user, 1 + user % 10, today.minusDays(2));
+        }
+        statsService.flush();
+        for (int user = 200; user < 500; user++) {
+            statsService.record(1, user, 1 + user % 10, today);
+        }
+        statsService.record(1, 999, 5, today.minusDays(30));
+        statsService.record(2, 1, 5, today);
+
+        RsEventStats stats = statsService.getStats(1, 7);
+
+        assertEquals(today.minusDays(6), stats.getFrom());
+        assertEquals(3300, stats.getVotes());
+        assertEquals(500, stats.getDistinctVoters(), 500 * 3 * stats.getDistinctVotersError());
+        assertEquals(5.5, stats.getVoteSizeQuantiles().get("p50"), 1);
+        assertEquals(10, stats.getVoteSizeQuantiles().get("max"), 10 * stats.getVoteSizeError());
+    }
+
+    @Test
+    void should_accumulate_into_existing_row_on_each_flush() {
+        LocalDate today = LocalDate.now();
+        statsService.record(3, 1, 2, today);
+        statsService.flush();
+        statsService.record(3, 1, 4, today);
+        statsService.record(3, 2, 4, today);
+        statsService.flush();
+
+        RsEventStats stats = statsService.getStats(3, 1);
+
+        assertEquals(1, statsRepository.count());
+        assertEquals(10, stats.getVotes());
+        assertEquals(2, stats.getDistinctVoters());
+        assertTrue(statsService.getStats(4, 7).getVoteSizeQuantiles().isEmpty());
+    }
+
+    @Test
+    void should_keep_votes_visible_while_they_are_being_flushed() {
+        LocalDate today = LocalDate.now();
+        statsService.record(5, 1, 3, today);
+        statsService.record(5, 2, 3, today);
+        AtomicLong votesDuringFlush = new AtomicLong(-1);
+        statsService.statsRepository = (RsEventStatsRepository) Proxy.newProxyInstance(
+                getClass().getClassLoader(), new Class<?>[]{RsEventStatsRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("findByRsEventIdAndDayForUpdate")) {
+                        statsService.statsRepository = statsRepository;
+                        votesDuringFlush.set(statsService.getStats(5, 1).getVotes());
+                    }
+                    try {
+                        return method.invoke(statsRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+        try {
+            statsService.flush();
+        } finally {
+            statsService.statsRepository = statsRepository;
+        }
+
+        assertEquals(6, votesDuringFlush.get());
+        assertEquals(6, statsService.getStats(5, 1).getVotes());
+    }
+}
@@ -0,0 +1,88 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.SingleFlightStats;
+import org.junit.jupiter.api.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SingleFlightTest {
+
+    @Test
+    void should_share_one_load_between_concurrent_callers_of_same_key() throws Exception {
+        SingleFlight<Integer, String> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+        CountDownLatch loading = new CountDownLatch(1);
+        CountDownLatch release = new CountDownLatch(1);
+
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        List<Future<String>> futures = new ArrayList<>();
+        futures.add(executor.submit(() -> singleFlight.execute(1, () -> {
+            loads.incrementAndGet();
+            loading.countDown();
+            await(release);
+            return "event 1";
+        })));
+        loading.await(5, TimeUnit.SECONDS);
+        for (int i = 0; i < 7; i++) {
+            futures.add(executor.submit(() -> singleFlight.execute(1, () -> {
+                loads.incrementAndGet();
+                return "event 1";
+            })));
+        }
+        while (singleFlight.getStats().getCalls() < 8) {
+            Thread.sleep(1);
+        }
+        release.countDown();
+
+        for (Future<String> future : futures) {
+            assertEquals("event 1", future.get(5, TimeUnit.SECONDS));
+        }
+        executor.shutdown();
+
+        SingleFlightStats stats = singleFlight.getStats();
+        assertEquals(1, loads.get());
+        assertEquals(8, stats.getCalls());
+        assertEquals(1, stats.getLoads());
+        assertEquals(7, stats.getDeduplicated());
+        assertEquals(0, stats.getInFlight());
+    }
+
+    @Test
+    void should_load_again_after_previous_flight_completed() {
+        SingleFlight<Integer, Integer> singleFlight = new SingleFlight<>();
+        AtomicInteger loads = new AtomicInteger();
+
+        singleFlight.execute(1, loads::incrementAndGet);
+        singleFlight.execute(1, loads::incrementAndGet);
+
+        assertEquals(2, loads.get());
+        assertEquals(0, singleFlight.getStats().getDeduplicated());
+    }
+
+    @Test
+    void should_propagate_loader_exception_and_release_key() {
+        SingleFlight<Integer, Integer> singleFlight = new SingleFlight<>();
+
+        assertThrows(IllegalStateException.class, () -> singleFlight.execute(1, () -> {
+            throw new IllegalStateException("db down");
+        }));
+        assertEquals(1, singleFlight.execute(1, () -> 1));
+    }
+
+    private static void await(CountDownLatch latch) {
+        try {
+            latch.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,102 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.VoteAnomaly;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.Optional;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VoteAnomalyDetectorTest {
+
+    private VoteAnomalyDetector detector;
+
+    @BeforeEach
+    void setUp() {
+        detector = new VoteAnomalyDetector();
+        detector.enabled = true;
+        detector.quarantine = true;
+        detector.windowSeconds = 60;
+        detector.buckets = 6;
+        detector.userRequests = 5;
+        detector.subnetVotes = 1000;
+        detector.subnetEventVotes = 100;
+        detector.eventVotes = 150;
+        detector.subnetUsers = 10;
+        detector.sketchWidth = 1024;
+        detector.maxTrackedSubnets = 16;
+        detector.maxRecords = 3;
+        detector.initialize();
+    }
+
+    @Test
+    void should_flag_user_voting_too_often() {
+        for (int i = 0; i < 5; i++) {
+            assertFalse(detector.inspect(1, i, 1, "10.0.0.1").isPresent());
+        }
+
+        Optional<VoteAnomaly> anomaly = detector.inspect(1, 5, 1, "10.0.0.1");
+        assertTrue(anomaly.isPresent());
+        assertEquals("user-requests", anomaly.get().getRule());
+        assertTrue(anomaly.get().isQuarantined());
+        assertFalse(detector.inspect(2, 5, 1, "10.0.0.1").isPresent());
+    }
+
+    @Test
+    void should_flag_many_accounts_from_one_subnet() {
+        for (int user = 0; user < 10; user++) {
+            assertFalse(detector.inspect(user, 1, 1, "192.168.3." + user).isPresent());
+        }
+        for (int user = 0; user < 10; user++) {
+            assertFalse(detector.inspect(100 + user, 1, 1, "172.16." + user + ".1").isPresent());
+        }
+
+        Optional<VoteAnomaly> anomaly = detector.inspect(10, 2, 1, "192.168.3.77");
+        assertTrue(anomaly.isPresent());
+        assertEquals("subnet-users", anomaly.get().getRule());
+        assertEquals("192.168.3.0/24", anomaly.get().getSubnet());
+    }
+
+    @Test
+    void should_flag_votes_concentrated_on_one_event_and_keep_bounded_records() {
+        assertFalse(detector.inspect(1, 7, 10, "10.1.1.1").isPresent());
+        assertFalse(detector.inspect(2, 7, 10, "10.1.1.2").isPresent());
+        for (int i = 0; i < 8; i++) {
+            detector.inspect(3 + i, 7, 10, "10.1.1.3");
+        }
+        for (int i = 0; i < 5; i++) {
+            Optional<VoteAnomaly> anomaly = detector.inspect(20 + i, 7, 10, "10.1.1.4");
+            assertEquals("subnet-event-votes", anomaly.get().getRule());
+        }
+
+        assertEquals(3, detector.getRecords().size());
+    }
+
+    @Test
+    void should_flag_event_voted_from_many_subnets() {
+        for (int i = 0; i < 15; i++) {
+            assertFalse(detector.inspect(i, 9, 10, "10.3." + i + ".1").isPresent());
+        }
+
+        Optional<VoteAnomaly> anomaly = detector.inspect(15, 9, 10, "10.3.15.1");
+        assertTrue(anomaly.isPresent());
+        assertEquals("event-votes", anomaly.get().getRule());
+        assertFalse(detector.inspect(16, 10, 10, "10.3.16.1").isPresent());
+    }
+
+    @Test
+    void should_keep_type_tag_out_of_subnet_event_keys() {
+        for (int subnetId : new int[]{0, -1, Integer.MIN_VALUE, 0x7fffffff}) {
+            assertEquals(0x3L, VoteAnomalyDetector.subnetEventKey(subnetId, -1) >>> 60);
+        }
+        assertEquals(0xffffffffL, VoteAnomalyDetector.subnetEventKey(-1, -1) & 0xffffffffL);
+    }
+
+    @Test
+    void should_reduce_addresses_to_subnets() {
+        assertEquals("10.2.3.0/24", VoteAnomalyDetector.subnetOf("10.2.3.4"));
+        assertEquals("2001:db8:85a3::/48", VoteAnomalyDetector.subnetOf("2001:db8:85a3:0:0:8a2e:370:7334"));
+        assertEquals("unknown", VoteAnomalyDetector.subnetOf(null));
+    }
+}
@@ -0,0 +1,120 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.transaction.PlatformTransactionManager;
+import org.springframework.transaction.support.TransactionTemplate;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+@SpringBootTest
+class VoteCounterServiceTest {
+
+    private static final int THREADS = 16;
+    private static final int VOTES_PER_THREAD = 50;
+
+    @Autowired
+    VoteCounterService voteCounterService;
+
+    @Autowired
+    RsEventRepository rsEventRepository;
+
+    @Autowired
+    UserRepository userRepository;
+
+    @Autowired
+    PlatformTransactionManager transactionManager;
+
+    private UserEntity userEntity;
+
+    @BeforeEach
+    void setUp() {
+        userEntity = userRepository.save(UserEntity.builder()
+                .name("Tom")
+                .age(20)
+                .gender("male")
+                .email("123@qq.com")
+                .phone("12345678901")
+                .voteNum(10)
+                .build());
+    }
+
+    @AfterEach
+    void clearUp() {
+        userRepository.deleteAll();
+        rsEventRepository.deleteAll();
+    }
+
+    @Test
+    void should_sum_shards_and_compact_into_rs_event() {
+        RsEventEntitiy rsEvent = saveOneRsEvent();
+        assertTrue(voteCounterService.promote(rsEvent.getId(), 4));
+        assertFalse(voteCounterService.promote(rsEvent.getId(), 4));
+
+        rsEvent = rsEventRepository.findById(rsEvent.getId()).get();
+        for (int userId = 0; userId < 10; userId++) {
+            incrementInTransaction(rsEvent, userId, 3);
+        }
+        assertEquals(30, voteCounterService.getVoteNum(rsEvent));
+        assertEquals(30, voteCounterService.getShardedVoteNums().get(rsEvent.getId()));
+
+        voteCounterService.compact();
+
+        rsEvent = rsEventRepository.findById(rsEvent.getId()).get();
+        assertEquals(30, rsEvent.getVoteNum());
+        assertEquals(30, voteCounterService.getVoteNum(rsEvent));
+    }
+
+    @Test
+    void should_not_lose_concurrent_increments_on_shards() throws Exception {
+        RsEventEntitiy saved = saveOneRsEvent();
+        voteCounterService.promote(saved.getId(), 16);
+        RsEventEntitiy rsEvent = rsEventRepository.findById(saved.getId()).get();
+
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        List<Future<?>> futures = new ArrayList<>();
+        for (int t = 0; t < THREADS; t++) {
+            int userId = t;
+            futures.add(executor.submit(() -> {
+                for (int i = 0; i < VOTES_PER_THREAD; i++) {
+                    incrementInTransaction(rsEvent, userId, 1);
+                }
+            }));
+        }
+        for (Future<?> future : futures) {
+            future.get();
+        }
+        executor.shutdown();
+
+        assertEquals(THREADS * VOTES_PER_THREAD, voteCounterService.getVoteNum(rsEvent));
+    }
+
+    private void incrementInTransaction(RsEventEntitiy rsEvent, int userId, int num) {
+        new TransactionTemplate(transactionManager).execute(status -> {
+            voteCounterService.increment(rsEvent, userId, num);
+            return null;
+        });
+    }
+
+    private RsEventEntitiy saveOneRsEvent() {
+        return rsEventRepository.save(RsEventEntitiy.builder()
+                .eventName("event name")
+                .keyword("keyword")
+                .userId(userEntity.getId())
+                .voteNum(0)
+                .build());
+    }
+}
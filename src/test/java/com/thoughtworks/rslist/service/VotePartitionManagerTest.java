@@ -0,0 +1,174 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.VotePartition;
+import com.thoughtworks.rslist.entity.VoteEntity;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.jdbc.core.ConnectionCallback;
+import org.springframework.jdbc.core.JdbcTemplate;
+
+import java.sql.Statement;
+import java.time.LocalDateTime;
+import java.time.YearMonth;
+import java.time.format.DateTimeFormatter;
+import java.time.temporal.ChronoUnit;
+import java.util.List;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest
+class VotePartitionManagerTest {
+
+    private static final DateTimeFormatter MONTH = DateTimeFormatter.ofPattern("yyyyMM");
+
+    @Autowired
+    VotePartitionManager votePartitionManager;
+    @Autowired
+    VoteRepository voteRepository;
+    @Autowired
+    JdbcTemplate jdbcTemplate;
+
+    private int retentionMonths;
+    private int aheadMonths;
+    private boolean archive;
+
+    @BeforeEach
+    void setUp() {
+        assumeTrue(!votePartitionManager.getPartitions().isEmpty(), "vote partitioning needs MySQL");
+        retentionMonths = votePartitionManager.retentionMonths;
+        aheadMonths = votePartitionManager.aheadMonths;
+        archive = votePartitionManager.archive;
+    }
+
+    @AfterEach
+    void clearUp() {
+        votePartitionManager.retentionMonths = retentionMonths;
+        votePartitionManager.aheadMonths = aheadMonths;
+        votePartitionManager.archive = archive;
+        YearMonth lastMonth = YearMonth.now().plusMonths(aheadMonths);
+        List<String> extra = partitionNames().stream()
+                .filter(name -> name.matches("p\\d{6}"))
+                .filter(name -> YearMonth.parse(name.substring(1), MONTH).isAfter(lastMonth))
+                .collect(Collectors.toList());
+        if (!extra.isEmpty()) {
+            jdbcTemplate.execute("ALTER TABLE vote_entity REORGANIZE PARTITION " + String.join(", ", extra)
+                    + ", p_future INTO (PARTITION p_future VALUES LESS THAN (MAXVALUE))");
+        }
+        for (String table : jdbcTemplate.queryForList("SELECT table_name FROM information_schema.tables " +
+                "WHERE table_schema = DATABASE() AND table_name LIKE 'vote\\_archive\\_%'", String.class)) {
+            jdbcTemplate.execute("DROP TABLE " + table);
+        }
+        voteRepository.deleteAll();
+    }
+
+    @Test
+    void should_partition_votes_by_month_between_history_and_future() {
+        List<String> names = partitionNames();
+
+        assertEquals("p_history", names.get(0));
+        assertEquals("p_future", names.get(names.size() - 1));
+        YearMonth now = YearMonth.now();
+        for (YearMonth month = now; !month.isAfter(now.plusMonths(aheadMonths)); month = month.plusMonths(1)) {
+            assertTrue(names.contains("p" + month.format(MONTH)), month.toString());
+        }
+    }
+
+    @Test
+    void should_split_future_partition_when_more_months_are_needed() {
+        votePartitionManager.aheadMonths = aheadMonths + 2;
+
+        votePartitionManager.maintain();
+
+        List<String> names = partitionNames();
+        YearMonth now = YearMonth.now();
+        assertTrue(names.contains("p" + now.plusMonths(aheadMonths + 1).format(MONTH)));
+        assertTrue(names.contains("p" + now.plusMonths(aheadMonths + 2).format(MONTH)));
+        assertEquals("p_future", names.get(names.size() - 1));
+    }
+
+    @Test
+    void should_archive_expired_partition_and_history_before_deleting_them() {
+        YearMonth oldest = partitionNames().stream()
+                .filter(name -> name.matches("p\\d{6}"))
+                .map(name -> YearMonth.parse(name.substring(1), MONTH))
+                .min(YearMonth::compareTo)
+                .get();
+        saveVote(oldest.atDay(15).atStartOfDay());
+        saveVote(LocalDateTime.of(2000, 1, 1, 0, 0));
+        saveVote(LocalDateTime.now());
+        votePartitionManager.archive = true;
+        votePartitionManager.retentionMonths = (int) ChronoUnit.MONTHS.between(oldest.plusMonths(1), YearMonth.now());
+
+        votePartitionManager.maintain();
+        votePartitionManager.maintain();
+
+        assertFalse(partitionNames().contains("p" + oldest.format(MONTH)));
+        assertEquals(1, voteRepository.findAll().size());
+        assertEquals(1, count("vote_archive_" + oldest.format(MONTH)));
+        assertEquals(1, count("vote_archive_history"));
+
+        saveVote(LocalDateTime.of(2001, 1, 1, 0, 0));
+        votePartitionManager.maintain();
+
+        assertEquals(2, count("vote_archive_history"));
+        assertEquals(1, voteRepository.findAll().size());
+    }
+
+    @Test
+    void should_archive_history_even_when_archiving_is_off() {
+        saveVote(LocalDateTime.of(2000, 1, 1, 0, 0));
+        votePartitionManager.archive = false;
+
+        votePartitionManager.maintain();
+
+        assertEquals(0, voteRepository.findAll().size());
+        assertEquals(1, count("vote_archive_history"));
+    }
+
+    @Test
+    void should_skip_maintenance_while_another_node_holds_the_lock() {
+        votePartitionManager.aheadMonths = aheadMonths + 1;
+        String added = "p" + YearMonth.now().plusMonths(aheadMonths + 1).format(MONTH);
+
+        jdbcTemplate.execute((ConnectionCallback<Void>) connection -> {
+            try (Statement statement = connection.createStatement()) {
+                statement.execute("SELECT GET_LOCK('" + VotePartitionManager.LOCK + "', 0)");
+                try {
+                    votePartitionManager.maintain();
+                    assertFalse(partitionNames().contains(added));
+                } finally {
+                    statement.execute("SELECT RELEASE_LOCK('" + VotePartitionManager.LOCK + "')");
+                }
+            }
+            return null;
+        });
+
+        votePartitionManager.maintain();
+        assertTrue(partitionNames().contains(added));
+    }
+
+    private void saveVote(LocalDateTime voteTime) {
+        voteRepository.save(VoteEntity.builder()
+                .voteNum(1)
+                .voteTime(voteTime)
+                .userId(1)
+                .rsEventId(1)
+                .build());
+    }
+
+    private int count(String table) {
+        return jdbcTemplate.queryForObject("SELECT COUNT(*) FROM " + table, Integer.class);
+    }
+
+    private List<String> partitionNames() {
+        return votePartitionManager.getPartitions().stream()
+                .map(VotePartition::getName)
+                .collect(Collectors.toList());
+    }
+}
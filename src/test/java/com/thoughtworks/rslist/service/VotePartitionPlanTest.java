@@ -0,0 +1,61 @@
+package com.thoughtworks.rslist.service;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.YearMonth;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class VotePartitionPlanTest {
+
+    private static final YearMonth NOW = YearMonth.of(2020, 11);
+
+    @Test
+    void should_partition_history_each_month_up_to_now_and_future() {
+        assertEquals("ALTER TABLE vote_entity PARTITION BY RANGE COLUMNS(vote_time) ("
+                        + "PARTITION p_history VALUES LESS THAN ('2020-10-01 00:00:00'), "
+                        + "PARTITION p202010 VALUES LESS THAN ('2020-11-01 00:00:00'), "
+                        + "PARTITION p202011 VALUES LESS THAN ('2020-12-01 00:00:00'), "
+                        + "PARTITION p_future VALUES LESS THAN (MAXVALUE))",
+                VotePartitionPlan.partitionTable(NOW.minusMonths(1), NOW));
+    }
+
+    @Test
+    void should_split_future_for_each_missing_month_across_year_end() {
+        List<String> statements = VotePartitionPlan.addMonths(Arrays.asList(NOW.minusMonths(1), NOW), NOW, 2);
+
+        assertEquals(Arrays.asList(
+                "ALTER TABLE vote_entity REORGANIZE PARTITION p_future INTO ("
+                        + "PARTITION p202012 VALUES LESS THAN ('2021-01-01 00:00:00'), "
+                        + "PARTITION p_future VALUES LESS THAN (MAXVALUE))",
+                "ALTER TABLE vote_entity REORGANIZE PARTITION p_future INTO ("
+                        + "PARTITION p202101 VALUES LESS THAN ('2021-02-01 00:00:00'), "
+                        + "PARTITION p_future VALUES LESS THAN (MAXVALUE))"),
+                statements);
+        assertTrue(VotePartitionPlan.addMonths(Arrays.asList(NOW, NOW.plusMonths(2)), NOW, 2).isEmpty());
+        assertEquals(3, VotePartitionPlan.addMonths(Collections.emptyList(), NOW, 2).size());
+    }
+
+    @Test
+    void should_expire_months_before_retention_cutoff() {
+        List<YearMonth> months = Arrays.asList(NOW.minusMonths(3), NOW.minusMonths(2), NOW.minusMonths(1), NOW);
+
+        assertEquals(Collections.singletonList("p202008"), VotePartitionPlan.expired(months, NOW, 2));
+        assertTrue(VotePartitionPlan.expired(months, NOW, 3).isEmpty());
+    }
+
+    @Test
+    void should_read_months_in_order_and_skip_history_and_future() {
+        assertEquals(Arrays.asList(YearMonth.of(2020, 12), YearMonth.of(2021, 1)),
+                VotePartitionPlan.months(Arrays.asList("p_history", "p202101", "p202012", "p_future")));
+    }
+
+    @Test
+    void should_name_archive_tables_after_partition() {
+        assertEquals("vote_archive_202008", VotePartitionPlan.archiveTable("p202008"));
+        assertEquals("vote_archive_history", VotePartitionPlan.archiveTable("p_history"));
+    }
+}
@@ -0,0 +1,247 @@
+package com.thoughtworks.rslist.service;
+
+import com.thoughtworks.rslist.domain.EndpointAllocation;
+import com.thoughtworks.rslist.domain.VoteResult;
+import com.thoughtworks.rslist.entity.RsEventEntitiy;
+import com.thoughtworks.rslist.entity.UserEntity;
+import com.thoughtworks.rslist.exception.VoteCommitException;
+import com.thoughtworks.rslist.observability.AllocationTracker;
+import com.thoughtworks.rslist.repository.RsEventRepository;
+import com.thoughtworks.rslist.repository.UserRepository;
+import com.thoughtworks.rslist.repository.VoteRepository;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.annotation.Autowired;
+import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.mock.web.MockHttpServletRequest;
+import org.springframework.web.context.request.RequestContextHolder;
+import org.springframework.web.context.request.ServletRequestAttributes;
+import org.springframework.web.servlet.HandlerMapping;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Proxy;
+import java.time.LocalDateTime;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+import static org.junit.jupiter.api.Assertions.*;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+@SpringBootTest(properties = {"rs.vote.group-commit.enabled=true", "rs.vote.group-commit.linger-ms=5"})
+class VoteServiceTest {
+
+    private static final int THREADS = 16;
+
+    @Autowired
+    VoteService voteService;
+    @Autowired
+    VoteCounterService voteCounterService;
+    @Autowired
+    RsEventRepository rsEventRepository;
+    @Autowired
+    UserRepository userRepository;
+    @Autowired
+    VoteRepository voteRepository;
+    @Autowired
+    AllocationTracker allocationTracker;
+
+    @AfterEach
+    void clearUp() {
+        voteRepository.deleteAll();
+        rsEventRepository.deleteAll();
+        userRepository.deleteAll();
+    }
+
+    @Test
+    void should_commit_concurrent_votes_in_batches() throws Exception {
+        List<UserEntity> users = saveUsers(THREADS, 10);
+        RsEventEntitiy rsEvent = saveOneRsEvent(users.get(0));
+        long batchesBefore = voteService.getStats().getBatches();
+
+        List<VoteResult> results = runConcurrently(users.stream()
+                .flatMap(user -> Collections.nCopies(5, user).stream())
+                .map(user -> (Callable<VoteResult>) () -> vote(rsEvent, user, 1))
+                .collect(Collectors.toList()));
+
+        assertTrue(results.stream().allMatch(result -> result == VoteResult.ACCEPTED));
+        assertTrue(voteService.getStats().getBatches() - batchesBefore < results.size());
+        assertEquals(results.size(), voteCounterService.getVoteNum(rsEventRepository.findById(rsEvent.getId()).get()));
+        assertEquals(results.size(), voteRepository.findAll().size());
+        for (UserEntity user : users) {
+            assertEquals(5, userRepository.findById(user.getId()).get().getVoteNum());
+        }
+    }
+
+    @Test
+    void should_give_every_vote_in_a_batch_its_own_result() throws Exception {
+        UserEntity user = saveUsers(1, 10).get(0);
+        RsEventEntitiy rsEvent = saveOneRsEvent(user);
+        List<Callable<VoteResult>> votes = new ArrayList<>(Collections.nCopies(6, () -> vote(rsEvent, user, 3)));
+        votes.add(() -> voteService.vote(0, user.getId(), 1, LocalDateTime.now(), "10.0.0.1"));
+        votes.add(() -> voteService.vote(rsEvent.getId(), 0, 1, LocalDateTime.now(), "10.0.0.1"));
+
+        List<VoteResult> results = runConcurrently(votes);
+
+        assertEquals(3, Collections.frequency(results, VoteResult.ACCEPTED));
+        assertEquals(3, Collections.frequency(results, VoteResult.NOT_ENOUGH_VOTES));
+        assertEquals(VoteResult.UNKNOWN_RS_EVENT, results.get(6));
+        assertEquals(VoteResult.UNKNOWN_USER, results.get(7));
+        assertEquals(1, userRepository.findById(user.getId()).get().getVoteNum());
+        assertEquals(9, voteCounterService.getVoteNum(rsEventRepository.findById(rsEvent.getId()).get()));
+    }
+
+    @Test
+    void should_never_spend_more_than_the_budget_when_votes_commit_concurrently() throws Exception {
+        UserEntity user = saveUsers(1, 10).get(0);
+        RsEventEntitiy rsEvent = saveOneRsEvent(user);
+        voteService.stop();
+        List<VoteResult> results;
+        try {
+            results = runConcurrently(Collections.nCopies(40, () -> vote(rsEvent, user, 1)));
+        } finally {
+            voteService.start();
+        }
+
+        assertEquals(10, Collections.frequency(results, VoteResult.ACCEPTED));
+        assertEquals(0, userRepository.findById(user.getId()).get().getVoteNum());
+        assertEquals(10, voteRepository.findAll().size());
+    }
+
+    @Test
+    void should_record_committer_allocation_against_the_vote_endpoint() throws Exception {
+        assumeTrue(allocationTracker.isEnabled());
+        UserEntity user = saveUsers(1, 10).get(0);
+        RsEventEntitiy rsEvent = saveOneRsEvent(user);
+        MockHttpServletRequest request = new MockHttpServletRequest("POST", "/rs/" + rsEvent.getId() + "/vote");
+        request.setAttribute(HandlerMapping.BEST_MATCHING_PATTERN_ATTRIBUTE, "/rs/{rsEventId}/vote");
+        long before = allocatedBytes("POST /rs/{rsEventId}/vote");
+        RequestContextHolder.setRequestAttributes(new ServletRequestAttributes(request));
+        try {
+            assertEquals(VoteResult.ACCEPTED, vote(rsEvent, user, 1));
+        } finally {
+            RequestContextHolder.resetRequestAttributes();
+        }
+
+        long deadline = System.currentTimeMillis() + 1000;
+        while (allocatedBytes("POST /rs/{rsEventId}/vote") == before && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertTrue(allocatedBytes("POST /rs/{rsEventId}/vote") > before);
+    }
+
+    @Test
+    void should_fail_votes_of_a_batch_that_throws_an_error_and_keep_committing() throws Exception {
+        UserEntity user = saveUsers(1, 10).get(0);
+        RsEventEntitiy rsEvent = saveOneRsEvent(user);
+        voteService.voteRepository = failingVoteRepository(() -> {
+            throw new NoClassDefFoundError("broken");
+        });
+        try {
+            VoteCommitException e = assertThrows(VoteCommitException.class, () -> vote(rsEvent, user, 1));
+            assertTrue(e.getCause() instanceof NoClassDefFoundError);
+        } finally {
+            voteService.voteRepository = voteRepository;
+        }
+
+        assertEquals(VoteResult.ACCEPTED, vote(rsEvent, user, 1));
+        assertEquals(9, userRepository.findById(user.getId()).get().getVoteNum());
+    }
+
+    @Test
+    void should_give_up_waiting_for_a_slow_batch() throws Exception {
+        UserEntity user = saveUsers(1, 10).get(0);
+        RsEventEntitiy rsEvent = saveOneRsEvent(user);
+        CountDownLatch release = new CountDownLatch(1);
+        voteService.voteRepository = failingVoteRepository(() -> {
+            release.await();
+            return null;
+        });
+        voteService.resultTimeoutMillis = 100;
+        try {
+            assertThrows(VoteCommitException.class, () -> vote(rsEvent, user, 1));
+        } finally {
+            voteService.voteRepository = voteRepository;
+            voteService.resultTimeoutMillis = 5000;
+            release.countDown();
+        }
+
+        assertEquals(VoteResult.ACCEPTED, vote(rsEvent, user, 1));
+    }
+
+    private VoteResult vote(RsEventEntitiy rsEvent, UserEntity user, int voteNum) throws VoteCommitException {
+        return voteService.vote(rsEvent.getId(), user.getId(), voteNum, LocalDateTime.now(), "10.0.0.1");
+    }
+
+    private List<VoteResult> runConcurrently(List<Callable<VoteResult>> votes) throws Exception {
+        ExecutorService executor = Executors.newFixedThreadPool(THREADS);
+        CountDownLatch ready = new CountDownLatch(1);
+        List<Future<VoteResult>> futures = new ArrayList<>();
+        for (Callable<VoteResult> vote : votes) {
+            futures.add(executor.submit(() -> {
+                ready.await();
+                return vote.call();
+            }));
+        }
+        ready.countDown();
+        List<VoteResult> results = new ArrayList<>();
+        for (Future<VoteResult> future : futures) {
+            results.add(future.get());
+        }
+        executor.shutdown();
+        return results;
+    }
+
+    private long allocatedBytes(String endpoint) {
+        return allocationTracker.getAllocations().stream()
+                .filter(allocation -> allocation.getEndpoint().equals(endpoint))
+                .mapToLong(EndpointAllocation::getAllocatedBytes)
+                .sum();
+    }
+
+    /**
+     * A vote repository whose saveAll runs the given action before delegating.
+     */
+    private VoteRepository failingVoteRepository(Callable<Object> beforeSave) {
+        return (VoteRepository) Proxy.newProxyInstance(getClass().getClassLoader(),
+                new Class<?>[]{VoteRepository.class}, (proxy, method, args) -> {
+                    if (method.getName().equals("saveAll")) {
+                        beforeSave.call();
+                    }
+                    try {
+                        return method.invoke(voteRepository, args);
+                    } catch (InvocationTargetException e) {
+                        throw e.getCause();
+                    }
+                });
+    }
+
+    private List<UserEntity> saveUsers(int count, int voteNum) {
+        return IntStream.range(0, count)
+                .mapToObj(i -> userRepository.save(UserEntity.builder()
+                        .name("user" + i)
+                        .age(20)
+                        .gender("male")
+                        .email("user" + i + "@qq.com")
+                        .phone("12345678901")
+                        .voteNum(voteNum)
+                        .build()))
+                .collect(Collectors.toList());
+    }
+
+    private RsEventEntitiy saveOneRsEvent(UserEntity user) {
+        return rsEventRepository.save(RsEventEntitiy.builder()
+                .eventName("event name")
+                .keyword("keyword")
+                .userId(user.getId())
+                .voteNum(0)
+                .build());
+    }
+}
@@ -0,0 +1,95 @@
+package com.thoughtworks.rslist.sketch;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class SketchTest {
+
+    @Test
+    void count_min_sketch_should_never_undercount() {
+        CountMinSketch sketch = new CountMinSketch(1024, 4);
+        for (long key = 0; key < 5000; key++) {
+            sketch.add(key, (int) (key % 7) + 1);
+        }
+
+        for (long key = 0; key < 5000; key++) {
+            assertTrue(sketch.estimate(key) >= key % 7 + 1);
+        }
+        sketch.add(42_000, 300);
+        assertTrue(sketch.estimate(42_000) < 300 + 2 * 20000 / 1024);
+
+        sketch.clear();
+        assertEquals(0, sketch.estimate(42_000));
+    }
+
+    @Test
+    void hyper_log_log_should_estimate_within_error_and_merge() {
+        HyperLogLog first = new HyperLogLog(12);
+        HyperLogLog second = new HyperLogLog(12);
+        for (long value = 0; value < 60_000; value++) {
+            first.add(value);
+            first.add(value);
+            second.add(value + 30_000);
+        }
+
+        assertEquals(60_000, first.estimate(), 60_000 * 3 * first.relativeError());
+        first.merge(second);
+        assertEquals(90_000, first.estimate(), 90_000 * 3 * first.relativeError());
+        assertEquals(first.estimate(), HyperLogLog.fromBytes(first.toBytes()).estimate());
+    }
+
+    @Test
+    void hyper_log_log_should_not_lose_concurrent_adds() throws Exception {
+        HyperLogLog concurrent = new HyperLogLog(10);
+        HyperLogLog sequential = new HyperLogLog(10);
+        Thread[] threads = new Thread[8];
+        for (int t = 0; t < threads.length; t++) {
+            long offset = t * 50_000L;
+            threads[t] = new Thread(() -> {
+                for (long value = 0; value < 50_000; value++) {
+                    concurrent.add(offset + value);
+                }
+            });
+            threads[t].start();
+        }
+        for (long value = 0; value < threads.length * 50_000L; value++) {
+            sequential.add(value);
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertArrayEquals(sequential.toBytes(), concurrent.toBytes());
+    }
+
+    @Test
+    void hyper_log_log_should_count_small_sets_exactly_enough() {
+        HyperLogLog hyperLogLog = new HyperLogLog(8);
+        for (int value = 1; value <= 20; value++) {
+            hyperLogLog.add(value);
+        }
+
+        assertEquals(20, hyperLogLog.estimate(), 2);
+    }
+
+    @Test
+    void quantile_sketch_should_stay_within_relative_accuracy_after_merge() {
+        QuantileSketch first = new QuantileSketch(0.01);
+        QuantileSketch second = new QuantileSketch(0.01);
+        for (int value = 1; value <= 1000; value++) {
+            (value % 2 == 0 ? first : second).add(value);
+        }
+        first.add(0);
+
+        QuantileSketch merged = QuantileSketch.fromBytes(first.toBytes());
+        merged.merge(second);
+
+        assertEquals(1001, merged.getCount());
+        assertEquals(0, merged.quantile(0));
+        assertEquals(500, merged.quantile(0.5), 500 * 0.01);
+        assertEquals(990, merged.quantile(0.99), 990 * 0.01);
+        assertEquals(1000, merged.quantile(1), 1000 * 0.01);
+        assertTrue(Double.isNaN(new QuantileSketch(0.01).quantile(0.5)));
+    }
+}
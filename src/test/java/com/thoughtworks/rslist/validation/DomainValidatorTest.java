@@ -0,0 +1,157 @@
+package com.thoughtworks.rslist.validation;
+
+import com.thoughtworks.rslist.domain.FieldViolation;
+import com.thoughtworks.rslist.domain.RsEvent;
+import com.thoughtworks.rslist.domain.User;
+import com.thoughtworks.rslist.domain.Vote;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import javax.validation.Validation;
+import javax.validation.Validator;
+import javax.validation.constraints.Min;
+import javax.validation.constraints.Positive;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.stream.Collectors;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+class DomainValidatorTest {
+
+    private static final String LONG_LOCAL_PART = String.join("", Collections.nCopies(65, "a"));
+    private static final String LONG_LABEL = String.join("", Collections.nCopies(64, "b"));
+
+    private static Locale defaultLocale;
+    private static Validator beanValidator;
+    private DomainValidator domainValidator;
+
+    @BeforeAll
+    static void setUpBeanValidator() {
+        defaultLocale = Locale.getDefault();
+        Locale.setDefault(Locale.ENGLISH);
+        beanValidator = Validation.buildDefaultValidatorFactory().getValidator();
+    }
+
+    @AfterAll
+    static void restoreLocale() {
+        Locale.setDefault(defaultLocale);
+    }
+
+    @BeforeEach
+    void setUp() {
+        domainValidator = new DomainValidator();
+        domainValidator.logIntervalMillis = 10_000;
+        domainValidator.initialize();
+    }
+
+    @Test
+    void should_agree_with_bean_validation_on_users() {
+        List<User> users = new ArrayList<>();
+        for (String userName : Arrays.asList(null, "", "Tom", "12345678", "123456789")) {
+            users.add(user(userName, 19, "male", "123@qq.com", "12345678901"));
+        }
+        for (int age : new int[]{0, 17, 18, 100, 101}) {
+            users.add(user("Tom", age, "male", "123@qq.com", "12345678901"));
+        }
+        users.add(user("Tom", 19, null, "123@qq.com", "12345678901"));
+        for (String email : Arrays.asList(null, "", "123@qq.com", "a.b@c.d", "A@B.COM", "a+tag@b-c.com",
+                "a@b--c.com", "a@b_c.com", "\"a b\"@c.com", "\u00e4@\u00fc.de", "x@[127.0.0.1]", "a..b@c.com",
+                ".a@b.com", "a.@b.com", "a@b.com.", "a@-b.com", "a@b-.com", "a@b..com", "a b@c.com",
+                "@c.com", "a@", "a@b@c.com", "no-at-sign", "x@[1.2.3]", LONG_LOCAL_PART + "@b.com",
+                "a@" + LONG_LABEL + ".com")) {
+            users.add(user("Tom", 19, "male", email, "12345678901"));
+        }
+        for (String phone : Arrays.asList(null, "", "12345678901", "22345678901", "1234567890",
+                "1234567890a", "123456789012")) {
+            users.add(user("Tom", 19, "male", "123@qq.com", phone));
+        }
+        users.add(user("123456789", 12, null, "a@", "2"));
+
+        users.forEach(this::assertSameViolations);
+    }
+
+    @Test
+    void should_agree_with_bean_validation_on_rs_events_and_votes() {
+        for (String eventName : Arrays.asList(null, "trend")) {
+            for (String keyword : Arrays.asList(null, "keyword")) {
+                for (Integer userId : Arrays.asList(null, 1)) {
+                    assertSameViolations(new RsEvent(eventName, keyword, userId));
+                }
+            }
+        }
+        for (Integer voteNum : Arrays.asList(null, -1, 0, 5)) {
+            for (Integer userId : Arrays.asList(null, 1)) {
+                for (String voteTime : Arrays.asList(null, "2020-08-01T10:00:00")) {
+                    assertSameViolations(new Vote(voteNum, userId, voteTime));
+                }
+            }
+        }
+    }
+
+    @Test
+    void should_report_field_constraint_and_message() {
+        List<FieldViolation> violations = domainValidator.validate(user("123456789", 19, "male", "123@qq.com", "2"));
+
+        assertEquals(Arrays.asList(
+                new FieldViolation("userName", "Size", "size must be between 0 and 8"),
+                new FieldViolation("phone", "Pattern", "must match \"1\\d{10}\"")), violations);
+        assertTrue(domainValidator.validate(user("Tom", 19, "male", "123@qq.com", "12345678901")).isEmpty());
+    }
+
+    @Test
+    void should_not_backtrack_on_long_invalid_domain_labels() {
+        String email = "a@" + String.join("", Collections.nCopies(5000, "b-")) + "(";
+
+        assertTimeoutPreemptively(Duration.ofSeconds(1), () -> assertFalse(EmailAddress.isValid(email)));
+    }
+
+    @Test
+    void should_refuse_to_compile_unknown_constraints() {
+        assertThrows(IllegalStateException.class, () -> CompiledValidator.compile(Unsupported.class));
+        assertThrows(IllegalStateException.class, () -> CompiledValidator.compile(MinOnString.class));
+    }
+
+    @Test
+    void should_count_every_rejected_request() {
+        User invalid = user("123456789", 19, "male", "not an email", "12345678901");
+
+        for (int i = 0; i < 100; i++) {
+            domainValidator.rejected("invalid user", domainValidator.validate(invalid));
+        }
+
+        assertEquals(100, domainValidator.getRejected());
+    }
+
+    private <T> void assertSameViolations(T bean) {
+        Set<String> expected = beanValidator.validate(bean).stream()
+                .map(violation -> violation.getPropertyPath() + ":"
+                        + violation.getConstraintDescriptor().getAnnotation().annotationType().getSimpleName())
+                .collect(Collectors.toSet());
+        Set<String> actual = domainValidator.validate(bean).stream()
+                .map(violation -> violation.getField() + ":" + violation.getConstraint())
+                .collect(Collectors.toSet());
+        assertEquals(expected, actual, bean.toString());
+    }
+
+    private User user(String userName, int age, String gender, String email, String phone) {
+        return new User(userName, age, gender, email, phone);
+    }
+
+    private static class Unsupported {
+        @Positive
+        private Integer value;
+    }
+
+    private static class MinOnString {
+        @Min(1)
+        private String value;
+    }
+}